@@ -0,0 +1,31 @@
+package com.lacavedeharol.chess.benchmark;
+
+import com.lacavedeharol.chess.perft.PerftSuite;
+
+/**
+ * The standard position suite shared by the benchmarks: the perft reference
+ * positions under short names usable as JMH parameters.
+ */
+public final class BenchmarkPositions {
+
+    public static final String START = "start";
+    public static final String KIWIPETE = "kiwipete";
+    public static final String ENDGAME = "endgame";
+    public static final String PROMOTIONS = "promotions";
+    public static final String TACTICAL = "tactical";
+    public static final String MIDDLEGAME = "middlegame";
+
+    private static final String[] NAMES = { START, KIWIPETE, ENDGAME, PROMOTIONS, TACTICAL, MIDDLEGAME };
+
+    private BenchmarkPositions() {
+    }
+
+    public static String fen(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name)) {
+                return PerftSuite.REFERENCES[i].fen();
+            }
+        }
+        throw new IllegalArgumentException("Unknown benchmark position: " + name);
+    }
+}
@@ -0,0 +1,48 @@
+package com.lacavedeharol.chess.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lacavedeharol.chess.model.GameState;
+import com.lacavedeharol.chess.model.ImprovedAI;
+
+/**
+ * Static evaluation of a single position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark {
+
+    @Param({ BenchmarkPositions.START, BenchmarkPositions.KIWIPETE, BenchmarkPositions.ENDGAME,
+            BenchmarkPositions.PROMOTIONS, BenchmarkPositions.TACTICAL, BenchmarkPositions.MIDDLEGAME })
+    public String position;
+
+    private GameState gameState;
+    private ImprovedAI ai;
+
+    @Setup
+    public void setUp() {
+        gameState = new GameState(BenchmarkPositions.fen(position));
+        ai = new ImprovedAI(gameState.isWhiteToMove());
+    }
+
+    @Benchmark
+    public int evaluateBoard() {
+        return ai.evaluateBoard(gameState);
+    }
+}
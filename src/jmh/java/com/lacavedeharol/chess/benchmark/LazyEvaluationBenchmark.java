@@ -0,0 +1,60 @@
+package com.lacavedeharol.chess.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lacavedeharol.chess.model.GameState;
+import com.lacavedeharol.chess.model.ImprovedAI;
+import com.lacavedeharol.chess.model.evaluation.TieredEvaluator;
+import com.lacavedeharol.chess.model.search.SearchLimits;
+import com.lacavedeharol.chess.model.search.SearchOptions;
+
+/**
+ * A fixed-depth search with an evaluator that always computes every term
+ * (full) against one that skips the expensive terms when the cheap score is
+ * far outside the window (lazy).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class LazyEvaluationBenchmark {
+
+    @Param({ BenchmarkPositions.START, BenchmarkPositions.KIWIPETE, BenchmarkPositions.MIDDLEGAME })
+    public String position;
+
+    @Param({ "6" })
+    public int depth;
+
+    @Param({ "full", "lazy" })
+    public String evaluator;
+
+    private SearchFixture fixture;
+    private ImprovedAI ai;
+
+    @Setup
+    public void setUp() {
+        fixture = new SearchFixture(position);
+        boolean lazy = evaluator.equals("lazy");
+        ai = new ImprovedAI(fixture.isWhiteToMove(), SearchLimits.depth(depth), fixture.getTranspositionTable(), 1,
+                SearchOptions.ALL, () -> new TieredEvaluator(lazy));
+    }
+
+    @Benchmark
+    public GameState search() {
+        return fixture.search(ai);
+    }
+}
@@ -0,0 +1,98 @@
+package com.lacavedeharol.chess.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.lacavedeharol.chess.model.GameState;
+import com.lacavedeharol.chess.model.GameStatus;
+import com.lacavedeharol.chess.model.bitboard.Bitboards;
+import com.lacavedeharol.chess.model.bitboard.MoveGenerator;
+
+/**
+ * Move generation, legality and attack detection through the GameState API.
+ * Each operation covers every piece of the side to move, so one op is "one
+ * position's worth" of work.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGenerationBenchmark {
+
+    @Param({ BenchmarkPositions.START, BenchmarkPositions.KIWIPETE, BenchmarkPositions.ENDGAME,
+            BenchmarkPositions.PROMOTIONS, BenchmarkPositions.TACTICAL, BenchmarkPositions.MIDDLEGAME })
+    public String position;
+
+    private GameState gameState;
+    private int[] squares;
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+    @Setup
+    public void setUp() {
+        gameState = new GameState(BenchmarkPositions.fen(position));
+        long pieces = gameState.getPosition().getOccupancy(gameState.isWhiteToMove());
+        squares = new int[Long.bitCount(pieces)];
+        for (int i = 0; i < squares.length; i++) {
+            squares[i] = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+        }
+    }
+
+    @Benchmark
+    public void legalMovesForPiece(Blackhole blackhole) {
+        for (int square : squares) {
+            blackhole.consume(gameState.getLegalMovesForPiece(Bitboards.fileOf(square), Bitboards.rankOf(square)));
+        }
+    }
+
+    /**
+     * The search's allocation-free generator: all pseudo-legal moves into an
+     * int array, before the king safety filter.
+     */
+    @Benchmark
+    public int packedPseudoLegalMoves() {
+        return MoveGenerator.generatePseudoLegal(gameState.getPosition(), gameState.isWhiteToMove(), moves, 0);
+    }
+
+    /**
+     * The search's allocation-free generator: all legal moves into an int array.
+     */
+    @Benchmark
+    public int packedLegalMoves() {
+        return MoveGenerator.generateLegal(gameState.getPosition(), gameState.isWhiteToMove(), moves, 0);
+    }
+
+    /**
+     * Asks whether each of the 64 squares is attacked by the side not to move.
+     */
+    @Benchmark
+    public int squareUnderAttack() {
+        boolean byWhite = !gameState.isWhiteToMove();
+        int attacked = 0;
+        for (int square = 0; square < 64; square++) {
+            if (gameState.isSquareUnderAttack(Bitboards.fileOf(square), Bitboards.rankOf(square), byWhite)) {
+                attacked++;
+            }
+        }
+        return attacked;
+    }
+
+    @Benchmark
+    public GameStatus gameStatus() {
+        return gameState.getGameStatus();
+    }
+}
@@ -0,0 +1,67 @@
+package com.lacavedeharol.chess.benchmark;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lacavedeharol.chess.model.GameState;
+import com.lacavedeharol.chess.model.ImprovedAI;
+import com.lacavedeharol.chess.model.search.SearchLimits;
+
+/**
+ * The Young Brothers Wait search at several thread counts. It visits the same
+ * nodes whatever the thread count, so the scores compare directly with each
+ * other and with the 1-thread run as the serial baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ParallelSearchBenchmark {
+
+    @Param({ BenchmarkPositions.START, BenchmarkPositions.KIWIPETE, BenchmarkPositions.MIDDLEGAME })
+    public String position;
+
+    @Param({ "4" })
+    public int depth;
+
+    @Param({ "1", "2", "4" })
+    public int threads;
+
+    private GameState gameState;
+    private ForkJoinPool pool;
+    private ImprovedAI ai;
+
+    @Setup
+    public void setUp() {
+        gameState = new GameState(BenchmarkPositions.fen(position));
+        pool = new ForkJoinPool(threads);
+        ai = new ImprovedAI(gameState.isWhiteToMove(), SearchLimits.depth(depth), pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public GameState youngBrothersWait() {
+        GameState copy = new GameState(gameState);
+        ai.makeMove(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,53 @@
+package com.lacavedeharol.chess.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lacavedeharol.chess.model.GameState;
+import com.lacavedeharol.chess.model.ImprovedAI;
+import com.lacavedeharol.chess.model.search.SearchLimits;
+
+/**
+ * A fixed-depth ImprovedAI search from each position of the suite, run
+ * through a {@link SearchFixture}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({ BenchmarkPositions.START, BenchmarkPositions.KIWIPETE, BenchmarkPositions.ENDGAME,
+            BenchmarkPositions.PROMOTIONS, BenchmarkPositions.TACTICAL, BenchmarkPositions.MIDDLEGAME })
+    public String position;
+
+    @Param({ "3" })
+    public int depth;
+
+    private SearchFixture fixture;
+    private ImprovedAI ai;
+
+    @Setup
+    public void setUp() {
+        fixture = new SearchFixture(position);
+        ai = new ImprovedAI(fixture.isWhiteToMove(), SearchLimits.depth(depth), fixture.getTranspositionTable());
+    }
+
+    @Benchmark
+    public GameState fixedDepthSearch() {
+        return fixture.search(ai);
+    }
+}
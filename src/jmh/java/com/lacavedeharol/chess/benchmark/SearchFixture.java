@@ -0,0 +1,40 @@
+package com.lacavedeharol.chess.benchmark;
+
+import com.lacavedeharol.chess.model.GameState;
+import com.lacavedeharol.chess.model.ImprovedAI;
+import com.lacavedeharol.chess.model.search.TranspositionTable;
+
+/**
+ * A suite position and the transposition table a search benchmark's AI is
+ * built on. Every search starts from a fresh copy of the position with an
+ * empty table, so the results are comparable between ops and runs.
+ */
+final class SearchFixture {
+
+    private final GameState gameState;
+    private final TranspositionTable transpositionTable = new TranspositionTable(16);
+
+    SearchFixture(String position) {
+        gameState = new GameState(BenchmarkPositions.fen(position));
+    }
+
+    boolean isWhiteToMove() {
+        return gameState.isWhiteToMove();
+    }
+
+    TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    /**
+     * @param ai built on this fixture's transposition table.
+     * @return the copy of the position the AI moved in.
+     */
+    GameState search(ImprovedAI ai) {
+        // Searched positions would otherwise carry over and shortcut the next op.
+        transpositionTable.clear();
+        GameState copy = new GameState(gameState);
+        ai.makeMove(copy);
+        return copy;
+    }
+}
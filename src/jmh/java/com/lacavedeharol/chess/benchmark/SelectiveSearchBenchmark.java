@@ -0,0 +1,68 @@
+package com.lacavedeharol.chess.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lacavedeharol.chess.model.GameState;
+import com.lacavedeharol.chess.model.ImprovedAI;
+import com.lacavedeharol.chess.model.search.SearchLimits;
+import com.lacavedeharol.chess.model.search.SearchOptions;
+
+/**
+ * A fixed-depth search with the selective techniques switched on one at a
+ * time, against the full-width search (none) and all of them together.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class SelectiveSearchBenchmark {
+
+    @Param({ BenchmarkPositions.START, BenchmarkPositions.KIWIPETE, BenchmarkPositions.MIDDLEGAME })
+    public String position;
+
+    @Param({ "5" })
+    public int depth;
+
+    @Param({ "none", "nullMove", "lmr", "futility", "all" })
+    public String options;
+
+    private SearchFixture fixture;
+    private ImprovedAI ai;
+
+    @Setup
+    public void setUp() {
+        fixture = new SearchFixture(position);
+        ai = new ImprovedAI(fixture.isWhiteToMove(), SearchLimits.depth(depth), fixture.getTranspositionTable(), 1,
+                searchOptions(options));
+    }
+
+    @Benchmark
+    public GameState selectiveSearch() {
+        return fixture.search(ai);
+    }
+
+    private static SearchOptions searchOptions(String name) {
+        return switch (name) {
+            case "none" -> SearchOptions.NONE;
+            case "nullMove" -> new SearchOptions(true, false, false);
+            case "lmr" -> new SearchOptions(false, true, false);
+            case "futility" -> new SearchOptions(false, false, true);
+            case "all" -> SearchOptions.ALL;
+            default -> throw new IllegalArgumentException("Unknown search options: " + name);
+        };
+    }
+}
@@ -236,8 +236,7 @@ public class ChessRendererListeners implements MouseListener, MouseMotionListene
             new SwingWorker<Void, Void>() {
                 @Override
                 protected Void doInBackground() throws Exception {
-                    // Slight delay, i am going for a "natural" feel.
-                    Thread.sleep(1000);
+                    // The AI's time budget gives the move a "natural" delay.
                     ai.makeMove(gameState);
                     return null;
                 }
@@ -37,6 +37,17 @@ public class ChessPiece {
         this.hasMoved = false;
     }
 
+    /**
+     * Creates an independent copy of another piece.
+     */
+    public ChessPiece(ChessPiece other) {
+        this.isWhite = other.isWhite;
+        this.pieceType = other.pieceType;
+        this.file = other.file;
+        this.rank = other.rank;
+        this.hasMoved = other.hasMoved;
+    }
+
     public boolean isWhite() {
         return isWhite;
     }
@@ -3,34 +3,82 @@ package com.lacavedeharol.chess.model;
 import java.awt.Point;
 import java.util.ArrayList;
 import java.util.List;
-import com.lacavedeharol.chess.model.validation.MoveValidationStrategy;
+
+import com.lacavedeharol.chess.model.bitboard.BitboardPosition;
+import com.lacavedeharol.chess.model.bitboard.Bitboards;
+import com.lacavedeharol.chess.model.bitboard.Fen;
+import com.lacavedeharol.chess.model.bitboard.MaterialKey;
+import com.lacavedeharol.chess.model.bitboard.MoveEncoding;
+import com.lacavedeharol.chess.model.bitboard.MoveGenerator;
+import com.lacavedeharol.chess.model.bitboard.PieceSquareTables;
+import com.lacavedeharol.chess.model.bitboard.Zobrist;
 
 /**
  * The Model (GameState). Holds the complete state of the chess game and all the
  * core game logic.
+ *
+ * The position itself lives in a {@link BitboardPosition}; the ChessPiece grid
+ * is kept in step with it as an object view for the renderer and controller.
  */
 public class GameState {
 
     // Core State:
+    private final BitboardPosition position;
     private final ChessPiece[][] chessPieces;
     private final List<ChessPiece> capturedPieces;
-    private boolean isWhiteToMove, isWhiteKingInCheck, isBlackKingInCheck;
-    private Point enPassantTargetSquare;
-
-    // Calculate valid moves for each piece.
-    private final MoveManager moveManager;
+    private boolean isWhiteKingInCheck, isBlackKingInCheck;
 
     public GameState() {
 
+        this.position = new BitboardPosition();
         this.chessPieces = new ChessPiece[8][8];
         this.capturedPieces = new ArrayList<>();
-        this.isWhiteToMove = true;
-        this.moveManager = new MoveManager(this);
         this.isWhiteKingInCheck = false;
         this.isBlackKingInCheck = false;
         initializePieces();
     }
 
+    /**
+     * Creates a game starting from an arbitrary position.
+     *
+     * @param fen the position in Forsyth-Edwards Notation.
+     */
+    public GameState(String fen) {
+        this.position = Fen.parse(fen);
+        this.chessPieces = new ChessPiece[8][8];
+        this.capturedPieces = new ArrayList<>();
+        long pieces = position.getOccupied();
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            int piece = position.getPieceAt(square);
+            chessPieces[Bitboards.fileOf(square)][Bitboards.rankOf(square)] = new ChessPiece(
+                    Bitboards.isWhite(piece), Bitboards.pieceType(piece),
+                    Bitboards.fileOf(square), Bitboards.rankOf(square));
+        }
+        updateCheckStatus();
+    }
+
+    /**
+     * Creates an independent copy of another game, e.g. for searching or
+     * analysing it without touching the original.
+     */
+    public GameState(GameState other) {
+        this.position = new BitboardPosition(other.position);
+        this.chessPieces = new ChessPiece[8][8];
+        long pieces = position.getOccupied();
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            int file = Bitboards.fileOf(square);
+            int rank = Bitboards.rankOf(square);
+            chessPieces[file][rank] = new ChessPiece(other.chessPieces[file][rank]);
+        }
+        this.capturedPieces = new ArrayList<>(other.capturedPieces);
+        this.isWhiteKingInCheck = other.isWhiteKingInCheck;
+        this.isBlackKingInCheck = other.isBlackKingInCheck;
+    }
+
     /**
      * Attempts to move a piece. This is the primary way to change the game
      * state.
@@ -45,21 +93,33 @@ public class GameState {
 
         // Basic Validation.
         ChessPiece piece = getPieceAt(fromFile, fromRank);
-        if (piece == null || piece.isWhite() != isWhiteToMove) {
+        if (piece == null || piece.isWhite() != position.isWhiteToMove()) {
             return MoveResult.INVALID;
         }
         List<Point> legalMoves = getLegalMovesForPiece(fromFile, fromRank);
         if (!legalMoves.contains(new Point(toFile, toRank))) {
             return MoveResult.INVALID;
         }
+        int from = Bitboards.square(fromFile, fromRank);
+        int to = Bitboards.square(toFile, toRank);
+
+        // Judge check before the board changes: a few attack lookups instead of a
+        // full rescan afterwards.
+        boolean isEnPassantCapture = piece.getPieceType() == PieceType.PAWN && to == position.getEnPassantSquare();
+        boolean isCastling = piece.getPieceType() == PieceType.KING && Math.abs(toFile - fromFile) == 2;
+        int move = MoveEncoding.encode(from, to, position.getPieceAt(from),
+                isEnPassantCapture ? Bitboards.pieceCode(!piece.isWhite(), PieceType.PAWN) : position.getPieceAt(to),
+                Bitboards.EMPTY,
+                isEnPassantCapture ? MoveEncoding.FLAG_EN_PASSANT : isCastling ? MoveEncoding.FLAG_CASTLING : 0);
+        boolean givesCheck = MoveGenerator.givesCheck(position, move);
+
         // EN PASSANT: State Reset
-        Point previousEnPassantTarget = enPassantTargetSquare;
+        int capturedBefore = capturedPieces.size();
+        int previousEnPassantTarget = position.getEnPassantSquare();
 
         // CAPTURE LOGIC (Handles Standard vs. En Passant)
-        if (piece.getPieceType() == PieceType.PAWN &&
-                new Point(toFile, toRank).equals(previousEnPassantTarget)) {
+        if (piece.getPieceType() == PieceType.PAWN && to == previousEnPassantTarget) {
             // This is an en passant capture. The captured pawn is on a different square.
-            System.out.println("En Passant capture detected." + " Target square: " + previousEnPassantTarget);
             int capturedPawnRank = fromRank;
             int capturedPawnFile = toFile;
 
@@ -67,7 +127,7 @@ public class GameState {
             if (capturedPawn != null) {
                 capturedPieces.add(capturedPawn);
                 chessPieces[capturedPawnFile][capturedPawnRank] = null;
-
+                position.removePiece(Bitboards.square(capturedPawnFile, capturedPawnRank));
             }
         } else {
             // This is a standard capture.
@@ -77,11 +137,18 @@ public class GameState {
             }
         }
 
+        boolean isCapture = capturedPieces.size() > capturedBefore;
+        position.setHalfmoveClock(piece.getPieceType() == PieceType.PAWN || isCapture
+                ? 0
+                : position.getHalfmoveClock() + 1);
+
         // PRIMARY PIECE MOVEMENT, before Castling/Promotion logic.
         chessPieces[toFile][toRank] = piece;
         chessPieces[fromFile][fromRank] = null;
         piece.setPosition(toFile, toRank);
         piece.markAsMoved();
+        position.movePiece(from, to);
+        position.updateCastlingRights(from, to);
 
         // CASTLING LOGIC
         if (piece.getPieceType() == PieceType.KING && Math.abs(toFile - fromFile) == 2) {
@@ -92,6 +159,7 @@ public class GameState {
 
                 rook.setPosition(5, fromRank);
                 rook.markAsMoved();
+                position.movePiece(Bitboards.square(7, fromRank), Bitboards.square(5, fromRank));
             } else { // Queen-side
                 ChessPiece rook = getPieceAt(0, fromRank);
                 chessPieces[0][fromRank] = null;
@@ -99,26 +167,31 @@ public class GameState {
 
                 rook.setPosition(3, fromRank);
                 rook.markAsMoved();
+                position.movePiece(Bitboards.square(0, fromRank), Bitboards.square(3, fromRank));
             }
         }
 
         // EN PASSANT: State Set for Next Turn
-        enPassantTargetSquare = null;
+        position.setEnPassantSquare(Bitboards.NO_SQUARE);
         if (piece.getPieceType() == PieceType.PAWN && Math.abs(fromRank - toRank) == 2) {
-            enPassantTargetSquare = new Point(toFile, (fromRank + toRank) / 2);
-
+            position.setEnPassantSquare(Bitboards.square(toFile, (fromRank + toRank) / 2));
         }
 
         boolean isPromotion = (piece.getPieceType() == PieceType.PAWN &&
                 (toRank == 0 || toRank == 7));
         if (isPromotion) {
             // Don't switch turns yet! The controller needs to get the promotion choice.
+            assert isPositionConsistent();
             return MoveResult.PROMOTION_REQUIRED;
         }
 
         // FINAL STATE UPDATES: If the move is valid, change turn.
-        isWhiteToMove = !isWhiteToMove;
-        updateCheckStatus();
+        position.setWhiteToMove(!position.isWhiteToMove());
+        // A legal move never leaves the mover in check.
+        this.isWhiteKingInCheck = !piece.isWhite() && givesCheck;
+        this.isBlackKingInCheck = piece.isWhite() && givesCheck;
+        assert isPositionConsistent();
+        assert isCheckStatusConsistent();
         return MoveResult.SUCCESS;
     }
 
@@ -132,26 +205,24 @@ public class GameState {
      */
     public List<Point> getLegalMovesForPiece(int file, int rank) {
         ChessPiece piece = getPieceAt(file, rank);
+        boolean isWhiteToMove = position.isWhiteToMove();
         if (piece == null || piece.isWhite() != isWhiteToMove) {
             return new ArrayList<>();
         }
 
-        List<Point> pseudoLegalMoves = moveManager.generateLegalMoves(piece, file, rank);
+        // Underpromotions share their squares with the queen promotion; the
+        // piece is chosen afterwards with promotePawn.
+        int from = Bitboards.square(file, rank);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(position, isWhiteToMove, moves, 0);
         List<Point> legalMoves = new ArrayList<>();
-
-        Point kingPosition = findKing(isWhiteToMove);
-        if (kingPosition == null) {
-            return pseudoLegalMoves;
-        }
-
-        for (Point move : pseudoLegalMoves) {
-            ChessPiece capturedPiece = makeHypotheticalMove(file, rank, move.x, move.y);
-            Point currentKingPos = (piece.getPieceType() == PieceType.KING) ? move : kingPosition;
-            boolean kingIsInCheck = isSquareUnderAttack(currentKingPos.x, currentKingPos.y, !isWhiteToMove);
-            undoHypotheticalMove(file, rank, move.x, move.y, piece, capturedPiece);
-
-            if (!kingIsInCheck) {
-                legalMoves.add(move);
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int promotion = MoveEncoding.promotion(move);
+            if (MoveEncoding.from(move) == from
+                    && (promotion == Bitboards.EMPTY || Bitboards.pieceType(promotion) == PieceType.QUEEN)) {
+                int to = MoveEncoding.to(move);
+                legalMoves.add(new Point(Bitboards.fileOf(to), Bitboards.rankOf(to)));
             }
         }
 
@@ -175,10 +246,14 @@ public class GameState {
         ChessPiece promotedPiece = new ChessPiece(pawn.isWhite(), choice, file, rank);
         promotedPiece.markAsMoved();
         chessPieces[file][rank] = promotedPiece;
+        int square = Bitboards.square(file, rank);
+        position.removePiece(square);
+        position.addPiece(square, Bitboards.pieceCode(pawn.isWhite(), choice));
 
         // Now that the move is fully complete, switch turns and update check status.
-        isWhiteToMove = !isWhiteToMove;
+        position.setWhiteToMove(!position.isWhiteToMove());
         updateCheckStatus();
+        assert isPositionConsistent();
     }
 
     public ChessPiece getPieceAt(int file, int rank) {
@@ -197,114 +272,100 @@ public class GameState {
     }
 
     public Point getEnPassantTargetSquare() {
-        return enPassantTargetSquare;
+        int square = position.getEnPassantSquare();
+        if (square == Bitboards.NO_SQUARE) {
+            return null;
+        }
+        return new Point(Bitboards.fileOf(square), Bitboards.rankOf(square));
     }
 
     public boolean isWhiteToMove() {
-        return isWhiteToMove;
+        return position.isWhiteToMove();
+    }
+
+    /**
+     * @return the Zobrist hash of the current position.
+     */
+    public long getHash() {
+        return position.getHash();
+    }
+
+    /**
+     * @return the bitboard position backing this game.
+     */
+    public BitboardPosition getPosition() {
+        return position;
     }
 
     /**
      * Checks if a given square is under attack by the opponent.
      */
     public boolean isSquareUnderAttack(int file, int rank, boolean isAttackedByWhite) {
-        for (int f = 0; f < 8; f++) {
-            for (int r = 0; r < 8; r++) {
-                ChessPiece piece = getPieceAt(f, r);
-                if (piece != null && piece.isWhite() == isAttackedByWhite) {
-                    MoveValidationStrategy validator = moveManager.getValidator(piece.getPieceType());
-                    if (validator.isValidMove(piece, f, r, file, rank, this)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return MoveGenerator.isSquareAttacked(position, Bitboards.square(file, rank), isAttackedByWhite);
     }
 
     /**
      * Finds the position of the specified color's king.
      */
     public Point findKing(boolean isWhite) {
-        for (int r = 0; r < 8; r++) {
-            for (int f = 0; f < 8; f++) {
-                ChessPiece piece = getPieceAt(f, r);
-                if (piece != null && piece.getPieceType() == PieceType.KING &&
-                        piece.isWhite() == isWhite) {
-                    return new Point(f, r);
-                }
-            }
+        int square = position.getKingSquare(isWhite);
+        if (square == Bitboards.NO_SQUARE) {
+            return null;
         }
-        return null;
+        return new Point(Bitboards.fileOf(square), Bitboards.rankOf(square));
     }
 
     private void updateCheckStatus() {
-        Point whiteKingPos = findKing(true);
-        if (whiteKingPos != null) {
-            this.isWhiteKingInCheck = isSquareUnderAttack(whiteKingPos.x, whiteKingPos.y, false);
-        } else {
-            this.isWhiteKingInCheck = false;
-        }
+        this.isWhiteKingInCheck = MoveGenerator.isInCheck(position, true);
+        this.isBlackKingInCheck = MoveGenerator.isInCheck(position, false);
+    }
 
-        Point blackKingPos = findKing(false);
-        if (blackKingPos != null) {
-            this.isBlackKingInCheck = isSquareUnderAttack(blackKingPos.x, blackKingPos.y, true);
-        } else {
-            this.isBlackKingInCheck = false;
+    private void initializePieces() {
+        PieceType[] backRowOrder = {
+                PieceType.ROOK, PieceType.KNIGHT, PieceType.BISHOP,
+                PieceType.QUEEN, PieceType.KING, PieceType.BISHOP, PieceType.KNIGHT, PieceType.ROOK
+        };
+
+        for (int file = 0; file < 8; file++) {
+            placePiece(new ChessPiece(true, PieceType.PAWN, file, 6));
+            placePiece(new ChessPiece(false, PieceType.PAWN, file, 1));
+            placePiece(new ChessPiece(true, backRowOrder[file], file, 7));
+            placePiece(new ChessPiece(false, backRowOrder[file], file, 0));
         }
+        position.setCastlingRights(Bitboards.ALL_CASTLING);
     }
 
     /**
-     * Temporarily performs a move on the board for validation purposes.
+     * Puts a piece on its square in both the object view and the bitboards.
      */
-    public ChessPiece makeHypotheticalMove(int fromFile, int fromRank, int toFile, int toRank) {
-        ChessPiece movingPiece = getPieceAt(fromFile, fromRank);
-        ChessPiece capturedPiece = getPieceAt(toFile, toRank);
-
-        if (movingPiece.getPieceType() == PieceType.PAWN &&
-                new Point(toFile, toRank).equals(this.enPassantTargetSquare)) {
-            int capturedPawnFile = toFile;
-            int capturedPawnRank = fromRank;
-            capturedPiece = getPieceAt(capturedPawnFile, capturedPawnRank);
-            chessPieces[capturedPawnFile][capturedPawnRank] = null;
-        }
-
-        chessPieces[toFile][toRank] = movingPiece;
-        chessPieces[fromFile][fromRank] = null;
-
-        return capturedPiece;
+    private void placePiece(ChessPiece piece) {
+        chessPieces[piece.getFile()][piece.getRank()] = piece;
+        placeInPosition(piece, piece.getFile(), piece.getRank());
     }
 
     /**
-     * Reverts a hypothetical move to restore the board to its original state.
+     * Debug check (enabled with -ea): the incrementally updated hashes and
+     * evaluation totals must match a from-scratch recompute.
      */
-    public void undoHypotheticalMove(int fromFile, int fromRank, int toFile, int toRank,
-            ChessPiece originalPiece, ChessPiece capturedPiece) {
-        chessPieces[fromFile][fromRank] = originalPiece;
-
-        if (originalPiece.getPieceType() == PieceType.PAWN &&
-                new Point(toFile, toRank).equals(this.enPassantTargetSquare)) {
-            chessPieces[toFile][toRank] = null;
-            if (capturedPiece != null) {
-                chessPieces[toFile][fromRank] = capturedPiece;
-            }
-        } else {
-            chessPieces[toFile][toRank] = capturedPiece;
-        }
+    private boolean isPositionConsistent() {
+        return position.getHash() == Zobrist.compute(position)
+                && position.getPawnHash() == Zobrist.computePawns(position)
+                && position.getMaterialKey() == MaterialKey.compute(position)
+                && position.getMaterialIndex() == MaterialKey.index(position.getMaterialKey())
+                && PieceSquareTables.isConsistent(position);
     }
 
-    private void initializePieces() {
-        PieceType[] backRowOrder = {
-                PieceType.ROOK, PieceType.KNIGHT, PieceType.BISHOP,
-                PieceType.QUEEN, PieceType.KING, PieceType.BISHOP, PieceType.KNIGHT, PieceType.ROOK
-        };
+    /**
+     * Debug check (enabled with -ea): the check flags derived from the move
+     * must match looking at the board.
+     */
+    private boolean isCheckStatusConsistent() {
+        return isWhiteKingInCheck == MoveGenerator.isInCheck(position, true)
+                && isBlackKingInCheck == MoveGenerator.isInCheck(position, false);
+    }
 
-        for (int file = 0; file < 8; file++) {
-            chessPieces[file][6] = new ChessPiece(true, PieceType.PAWN, file, 6);
-            chessPieces[file][1] = new ChessPiece(false, PieceType.PAWN, file, 1);
-            chessPieces[file][7] = new ChessPiece(true, backRowOrder[file], file, 7);
-            chessPieces[file][0] = new ChessPiece(false, backRowOrder[file], file, 0);
-        }
+    private void placeInPosition(ChessPiece piece, int file, int rank) {
+        position.addPiece(Bitboards.square(file, rank), Bitboards.pieceCode(piece.isWhite(), piece.getPieceType()));
     }
 
     /**
@@ -312,11 +373,11 @@ public class GameState {
      * stalemate).
      */
     public GameStatus getGameStatus() {
-        if (hasLegalMoves(isWhiteToMove)) {
+        if (hasLegalMoves(position.isWhiteToMove())) {
             return GameStatus.IN_PROGRESS;
         }
 
-        if (isWhiteToMove) {
+        if (position.isWhiteToMove()) {
             if (isWhiteKingInCheck) {
                 return GameStatus.CHECKMATE_BLACK_WINS;
             } else {
@@ -335,16 +396,6 @@ public class GameState {
      * A helper method to check if a given side has any legal moves.
      */
     private boolean hasLegalMoves(boolean isWhite) {
-        for (int file = 0; file < 8; file++) {
-            for (int rank = 0; rank < 8; rank++) {
-                ChessPiece piece = getPieceAt(file, rank);
-                if (piece != null && piece.isWhite() == isWhite) {
-                    if (!getLegalMovesForPiece(file, rank).isEmpty()) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return MoveGenerator.generateLegal(position, isWhite, new int[MoveGenerator.MAX_MOVES], 0) > 0;
     }
 }
\ No newline at end of file
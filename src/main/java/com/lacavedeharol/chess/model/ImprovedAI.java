@@ -1,60 +1,200 @@
 package com.lacavedeharol.chess.model;
 
-import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+import com.lacavedeharol.chess.model.bitboard.BitboardPosition;
+import com.lacavedeharol.chess.model.bitboard.Bitboards;
+import com.lacavedeharol.chess.model.bitboard.MoveEncoding;
+import com.lacavedeharol.chess.model.bitboard.MoveGenerator;
+import com.lacavedeharol.chess.model.evaluation.Evaluator;
+import com.lacavedeharol.chess.model.evaluation.MaterialTable;
+import com.lacavedeharol.chess.model.evaluation.TieredEvaluator;
+import com.lacavedeharol.chess.model.search.MoveOrdering;
+import com.lacavedeharol.chess.model.search.MovePicker;
+import com.lacavedeharol.chess.model.search.SearchLimits;
+import com.lacavedeharol.chess.model.search.SearchOptions;
+import com.lacavedeharol.chess.model.search.StaticExchange;
+import com.lacavedeharol.chess.model.search.TranspositionTable;
 
 /**
- * Upgraded AI with hard difficulty (depth 3 minimax + positional
- * evaluation).
+ * Upgraded AI with hard difficulty (iterative deepening negamax principal
+ * variation search + positional evaluation).
+ *
+ * With more than one thread it runs Lazy SMP: helper threads search the same
+ * root on their own copies of the board, starting at staggered depths, and
+ * share what they find only through the transposition table. The main
+ * thread's result is the one played. The helpers keep their threads between
+ * moves until the AI is closed.
+ *
+ * Given a ForkJoinPool it instead runs a deterministic Young Brothers Wait
+ * search: see {@link YoungBrothersTask}.
  */
-public class ImprovedAI {
+public class ImprovedAI implements AutoCloseable {
 
     private final boolean isWhite;
+    private final SearchLimits limits;
+    private final SearchOptions options;
+    private final Supplier<? extends Evaluator> evaluatorFactory;
+    private final TranspositionTable transpositionTable;
+    private final SearchWorker[] workers;
+    private final ExecutorService helperThreads;
+    private final ForkJoinPool youngBrothersPool;
     private final Random random = new Random();
-    private static final int SEARCH_DEPTH = 3; // Look ahead 3 moves
-
-    // Piece-square tables for positional evaluation
-    private static final int[][] PAWN_TABLE = {
-            { 0, 0, 0, 0, 0, 0, 0, 0 },
-            { 50, 50, 50, 50, 50, 50, 50, 50 },
-            { 10, 10, 20, 30, 30, 20, 10, 10 },
-            { 5, 5, 10, 25, 25, 10, 5, 5 },
-            { 0, 0, 0, 20, 20, 0, 0, 0 },
-            { 5, -5, -10, 0, 0, -10, -5, 5 },
-            { 5, 10, 10, -20, -20, 10, 10, 5 },
-            { 0, 0, 0, 0, 0, 0, 0, 0 }
-    };
-
-    private static final int[][] KNIGHT_TABLE = {
-            { -50, -40, -30, -30, -30, -30, -40, -50 },
-            { -40, -20, 0, 0, 0, 0, -20, -40 },
-            { -30, 0, 10, 15, 15, 10, 0, -30 },
-            { -30, 5, 15, 20, 20, 15, 5, -30 },
-            { -30, 0, 15, 20, 20, 15, 0, -30 },
-            { -30, 5, 10, 15, 15, 10, 5, -30 },
-            { -40, -20, 0, 5, 5, 0, -20, -40 },
-            { -50, -40, -30, -30, -30, -30, -40, -50 }
-    };
-
-    private static final int[][] KING_TABLE_MIDGAME = {
-            { -30, -40, -40, -50, -50, -40, -40, -30 },
-            { -30, -40, -40, -50, -50, -40, -40, -30 },
-            { -30, -40, -40, -50, -50, -40, -40, -30 },
-            { -30, -40, -40, -50, -50, -40, -40, -30 },
-            { -20, -30, -30, -40, -40, -30, -30, -20 },
-            { -10, -20, -20, -20, -20, -20, -20, -10 },
-            { 20, 20, 0, 0, 0, 0, 20, 20 },
-            { 20, 30, 10, 0, 0, 10, 30, 20 }
-    };
+    private static final long TIME_BUDGET_MILLIS = 1000; // Think for about a second per move
+    private static final int HASH_SIZE_MB = 16;
+    private static final int NODES_BETWEEN_CLOCK_CHECKS = 1024;
+    private static final int MATE_SCORE = 1_000_000; // Minus the distance to mate, so faster mates score higher
+    private static final int INFINITY = MATE_SCORE + 1;
+    private static final int DELTA_MARGIN = 200; // Positional slack allowed on top of a capture's material
+    private static final int SERIAL_DEPTH = 2; // Young Brothers Wait nodes this shallow are searched serially
+    private static final int ASPIRATION_WINDOW = 50; // Half-width of the first window around the last score
+    private static final int ASPIRATION_MIN_DEPTH = 4; // Shallower iterations are too unstable to aim at
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_FULL_DEPTH_MOVES = 3; // Moves searched at full depth before reducing
+    private static final int REVERSE_FUTILITY_MAX_DEPTH = 3;
+    private static final int REVERSE_FUTILITY_MARGIN = 120; // Per ply of remaining depth
+    private static final int[] FUTILITY_MARGINS = { 0, 200, 350 }; // By remaining depth, 1 and 2 only
+
+    // Search state shared by all threads, reset for every move.
+    private volatile long deadline;
+    private volatile boolean stopHelpers;
+    private volatile long lastSearchNodes;
+    private volatile int[] lastPrincipalVariation = new int[0];
+    private final ThreadLocal<SearchWorker> youngBrothersWorkers =
+            ThreadLocal.withInitial(() -> new SearchWorker(false, 1));
 
     public ImprovedAI(boolean isWhite) {
+        this(isWhite, SearchLimits.time(TIME_BUDGET_MILLIS));
+    }
+
+    /**
+     * @param isWhite
+     * @param searchDepth how many plies to look ahead, regardless of time.
+     */
+    public ImprovedAI(boolean isWhite, int searchDepth) {
+        this(isWhite, SearchLimits.depth(searchDepth));
+    }
+
+    /**
+     * @param isWhite
+     * @param limits  when to stop deepening the search.
+     */
+    public ImprovedAI(boolean isWhite, SearchLimits limits) {
+        this(isWhite, limits, new TranspositionTable(HASH_SIZE_MB));
+    }
+
+    /**
+     * @param isWhite
+     * @param limits             when to stop deepening the search.
+     * @param transpositionTable remembers searched positions between moves.
+     */
+    public ImprovedAI(boolean isWhite, SearchLimits limits, TranspositionTable transpositionTable) {
+        this(isWhite, limits, transpositionTable, 1);
+    }
+
+    /**
+     * @param isWhite
+     * @param limits             when to stop deepening the search.
+     * @param transpositionTable remembers searched positions between moves, and
+     *                           is shared by all search threads.
+     * @param threads            search threads; more than 1 enables Lazy SMP.
+     */
+    public ImprovedAI(boolean isWhite, SearchLimits limits, TranspositionTable transpositionTable, int threads) {
+        this(isWhite, limits, transpositionTable, threads, SearchOptions.ALL);
+    }
+
+    /**
+     * @param isWhite
+     * @param limits             when to stop deepening the search.
+     * @param transpositionTable remembers searched positions between moves, and
+     *                           is shared by all search threads.
+     * @param threads            search threads; more than 1 enables Lazy SMP.
+     * @param options            the selective search techniques to use.
+     */
+    public ImprovedAI(boolean isWhite, SearchLimits limits, TranspositionTable transpositionTable, int threads,
+            SearchOptions options) {
+        this(isWhite, limits, transpositionTable, threads, options, TieredEvaluator::new);
+    }
+
+    /**
+     * @param isWhite
+     * @param limits             when to stop deepening the search.
+     * @param transpositionTable remembers searched positions between moves, and
+     *                           is shared by all search threads.
+     * @param threads            search threads; more than 1 enables Lazy SMP.
+     * @param options            the selective search techniques to use.
+     * @param evaluatorFactory   creates the evaluator of each search thread.
+     */
+    public ImprovedAI(boolean isWhite, SearchLimits limits, TranspositionTable transpositionTable, int threads,
+            SearchOptions options, Supplier<? extends Evaluator> evaluatorFactory) {
+        this(isWhite, limits, options, evaluatorFactory, transpositionTable, threads, null);
+    }
+
+    /**
+     * Creates an AI that runs the Young Brothers Wait parallel search on a
+     * pool. It visits the same nodes on every run whatever the pool's size, so
+     * it is meant for measuring parallel speedup. Searches are not interrupted
+     * mid-iteration: the time budget is only checked between iterations and
+     * the node budget is ignored, so give it a depth limit.
+     *
+     * @param isWhite
+     * @param limits  when to stop deepening the search.
+     * @param pool    the threads to search with.
+     */
+    public ImprovedAI(boolean isWhite, SearchLimits limits, ForkJoinPool pool) {
+        this(isWhite, limits, SearchOptions.ALL, TieredEvaluator::new, null, 1, pool);
+    }
+
+    private ImprovedAI(boolean isWhite, SearchLimits limits, SearchOptions options,
+            Supplier<? extends Evaluator> evaluatorFactory, TranspositionTable transpositionTable, int threads,
+            ForkJoinPool youngBrothersPool) {
         this.isWhite = isWhite;
+        this.youngBrothersPool = youngBrothersPool;
+        this.limits = limits;
+        this.options = options;
+        this.evaluatorFactory = evaluatorFactory;
+        this.transpositionTable = transpositionTable;
+        this.workers = new SearchWorker[Math.max(1, threads)];
+        for (int i = 0; i < workers.length; i++) {
+            // Helpers alternate between starting one and two plies deep so they
+            // spread out over different iterations instead of duplicating the main thread.
+            workers[i] = new SearchWorker(i > 0, i == 0 ? 1 : 1 + (i % 2));
+        }
+        this.helperThreads = workers.length > 1
+                ? Executors.newFixedThreadPool(workers.length - 1, runnable -> {
+                    Thread thread = new Thread(runnable, "ImprovedAI helper");
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+    }
+
+    /**
+     * Stops the Lazy SMP helper threads. The AI cannot search with helpers
+     * afterwards. A Young Brothers Wait pool belongs to the caller and is left
+     * running.
+     */
+    @Override
+    public void close() {
+        if (helperThreads != null) {
+            helperThreads.shutdown();
+        }
     }
 
     /**
-     * Makes the best move using minimax algorithm with alpha-beta pruning.
+     * Makes the best move found by iterative deepening within the search
+     * limits.
      * 
      * @param gameState
      */
@@ -63,293 +203,922 @@ public class ImprovedAI {
             return;
         }
 
-        List<Move> allPossibleMoves = getAllLegalMoves(gameState);
+        // The search plays on its own copy; the game only sees the chosen move.
+        BitboardPosition position = new BitboardPosition(gameState.getPosition());
+        int[] allPossibleMoves = getAllLegalMoves(position);
 
-        if (allPossibleMoves.isEmpty()) {
+        if (allPossibleMoves.length == 0) {
             System.out.println("AI has no moves. Game over?");
             return;
         }
 
-        Move bestMove = findBestMove(gameState, allPossibleMoves);
-
-        if (bestMove != null) {
-            MoveResult result = gameState.movePiece(
-                    bestMove.fromFile, bestMove.fromRank,
-                    bestMove.toFile, bestMove.toRank);
-
-            // Always promote to queen
-            if (result == MoveResult.PROMOTION_REQUIRED) {
-                gameState.promotePawn(bestMove.toFile, bestMove.toRank, PieceType.QUEEN);
-            }
+        deadline = limits.timeBudgetMillis() > 0
+                ? System.nanoTime() + limits.timeBudgetMillis() * 1_000_000
+                : Long.MAX_VALUE;
+        int bestMove;
+        if (youngBrothersPool != null) {
+            bestMove = youngBrothersSearch(position, allPossibleMoves);
         } else {
+            transpositionTable.newSearch();
+            stopHelpers = false;
+            List<Future<?>> helpers = startHelpers(position, allPossibleMoves.length);
+            bestMove = workers[0].iterativeDeepening(position, allPossibleMoves);
+            stopHelpers = true;
+            waitFor(helpers);
+            long nodes = workers[0].nodes;
+            for (int i = 1; i <= helpers.size(); i++) {
+                nodes += workers[i].nodes;
+            }
+            lastSearchNodes = nodes;
+            lastPrincipalVariation = workers[0].principalVariation;
+        }
+
+        if (bestMove == MoveEncoding.NO_MOVE) {
             // Fallback to random (shouldn't happen)
-            Move randomMove = allPossibleMoves.get(random.nextInt(allPossibleMoves.size()));
-            gameState.movePiece(randomMove.fromFile, randomMove.fromRank,
-                    randomMove.toFile, randomMove.toRank);
+            bestMove = allPossibleMoves[random.nextInt(allPossibleMoves.length)];
         }
+        int from = MoveEncoding.from(bestMove);
+        int to = MoveEncoding.to(bestMove);
+        MoveResult result = gameState.movePiece(Bitboards.fileOf(from), Bitboards.rankOf(from),
+                Bitboards.fileOf(to), Bitboards.rankOf(to));
+
+        if (result == MoveResult.PROMOTION_REQUIRED) {
+            gameState.promotePawn(Bitboards.fileOf(to), Bitboards.rankOf(to),
+                    Bitboards.pieceType(MoveEncoding.promotion(bestMove)));
+        }
+    }
+
+    /**
+     * @return the nodes all search threads visited during the last move. For
+     *         the Young Brothers Wait search this is the same on every run.
+     */
+    public long getLastSearchNodes() {
+        return lastSearchNodes;
+    }
+
+    /**
+     * @return the line the last search expects to be played, starting with
+     *         the move made, as packed moves (see {@link MoveEncoding}). Empty
+     *         for the Young Brothers Wait search, which keeps no line.
+     */
+    public int[] getLastPrincipalVariation() {
+        return lastPrincipalVariation.clone();
     }
 
     /**
-     * Finds the best move using minimax with alpha-beta pruning.
+     * Evaluates the current board position.
+     * Higher score = better for AI, lower = better for opponent.
      * 
      * @param gameState
-     * @param moves
      * @return
      */
-    private Move findBestMove(GameState gameState, List<Move> moves) {
-        Move bestMove = null;
-        int bestScore = Integer.MIN_VALUE;
+    public int evaluateBoard(GameState gameState) {
+        // Borrows the main search thread's evaluator, so not to be called during a search.
+        BitboardPosition position = gameState.getPosition();
+        int score = workers[0].evaluator.evaluate(position);
+        return position.isWhiteToMove() == this.isWhite ? score : -score;
+    }
+
+    /**
+     * Gets the material value of a piece.
+     * 
+     * @param pieceType
+     * @return
+     */
+    private int getPieceValue(PieceType pieceType) {
+        return StaticExchange.pieceValue(pieceType);
+    }
 
-        for (Move move : moves) {
-            ChessPiece movingPiece = gameState.getPieceAt(move.fromFile, move.fromRank);
-            ChessPiece capturedPiece = gameState.makeHypotheticalMove(
-                    move.fromFile, move.fromRank, move.toFile, move.toRank);
+    /**
+     * Gets all legal moves for the AI's pieces.
+     * 
+     * @param position
+     * @return
+     */
+    private int[] getAllLegalMoves(BitboardPosition position) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(position, position.isWhiteToMove(), moves, 0);
+        return Arrays.copyOf(moves, count);
+    }
 
-            // Use minimax to evaluate this move
-            int score = -minimax(gameState, SEARCH_DEPTH - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+    /**
+     * Scores a node where the side to move has no legal moves, for that side:
+     * being mated is the worst possible outcome, and the sooner the worse.
+     * 
+     * @param position
+     * @param ply
+     * @return
+     */
+    private static int mateOrStalemate(BitboardPosition position, int ply) {
+        if (MoveGenerator.isInCheck(position, position.isWhiteToMove())) {
+            return -MATE_SCORE + ply;
+        }
+        return 0; // Stalemate
+    }
 
-            gameState.undoHypotheticalMove(
-                    move.fromFile, move.fromRank, move.toFile, move.toRank,
-                    movingPiece, capturedPiece);
+    private static boolean isMateScore(int score) {
+        return Math.abs(score) >= MATE_SCORE - MoveOrdering.MAX_PLY;
+    }
 
-            if (score > bestScore) {
-                bestScore = score;
-                bestMove = move;
-            }
+    /**
+     * @return the side to move's pieces other than pawns and the king.
+     */
+    private static long nonPawnPieces(BitboardPosition position) {
+        boolean isWhite = position.isWhiteToMove();
+        int base = isWhite ? Bitboards.WHITE_PAWN : Bitboards.BLACK_PAWN;
+        return position.getOccupancy(isWhite) & ~position.getPieceSet(base) & ~position.getPieceSet(base + 5);
+    }
+
+    /**
+     * Scores from the transposition table are relative to the node they were
+     * stored at, so a mate is stored as "mate in n from here" and read back
+     * as the right distance from the root wherever the position recurs.
+     */
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE_SCORE - MoveOrdering.MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE_SCORE + MoveOrdering.MAX_PLY) {
+            return score - ply;
         }
+        return score;
+    }
 
-        return bestMove;
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE_SCORE - MoveOrdering.MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE_SCORE + MoveOrdering.MAX_PLY) {
+            return score + ply;
+        }
+        return score;
     }
 
     /**
-     * Minimax algorithm with alpha-beta pruning.
-     * Recursively evaluates positions to find the best move.
+     * Starts the Lazy SMP helpers, each on its own copy of the position.
      * 
-     * @param gameState
-     * @param depth
-     * @param alpha
-     * @param beta
-     * @param isMaximizing
+     * @param position
+     * @param moveCount
+     * @return the running helpers, empty when single threaded.
+     */
+    private List<Future<?>> startHelpers(BitboardPosition position, int moveCount) {
+        List<Future<?>> helpers = new ArrayList<>();
+        if (helperThreads == null || moveCount == 1) {
+            return helpers;
+        }
+        for (int i = 1; i < workers.length; i++) {
+            SearchWorker worker = workers[i];
+            BitboardPosition copy = new BitboardPosition(position);
+            helpers.add(helperThreads.submit(() -> worker.iterativeDeepening(copy, getAllLegalMoves(copy))));
+        }
+        return helpers;
+    }
+
+    private void waitFor(List<Future<?>> helpers) {
+        for (Future<?> helper : helpers) {
+            try {
+                helper.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search helper failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Iterative deepening with the Young Brothers Wait search. Each iteration
+     * runs to completion; the time budget is checked between iterations.
+     * 
+     * @param position
+     * @param moves
      * @return
      */
-    private int minimax(GameState gameState, int depth, int alpha, int beta, boolean isMaximizing) {
-        // Base case: reached maximum depth or game over
-        if (depth == 0) {
-            return evaluateBoard(gameState);
+    private int youngBrothersSearch(BitboardPosition position, int[] moves) {
+        lastSearchNodes = 0;
+        if (moves.length == 1) {
+            return moves[0];
         }
 
-        List<Move> moves = getAllLegalMoves(gameState);
+        int[] rootMoves = moves.clone();
+        youngBrothersWorkers.get().forTask(null).sortMoves(position, rootMoves, rootMoves.length, 0, 0);
+        int bestMove = MoveEncoding.NO_MOVE;
+        long nodes = 0;
+        for (int depth = 1; depth <= limits.maxDepth() && System.nanoTime() < deadline; depth++) {
+            YoungBrothersTask root = new YoungBrothersTask(null, new BitboardPosition(position), rootMoves,
+                    depth, -INFINITY, INFINITY, 0);
+            youngBrothersPool.invoke(root);
+            nodes += root.nodes;
+            bestMove = root.bestMove;
+            moveToFront(rootMoves, bestMove);
+        }
+        lastSearchNodes = nodes;
+        return bestMove;
+    }
 
-        if (moves.isEmpty()) {
-            // Game over - checkmate or stalemate
-            if (gameState.isWhiteKingInCheck() || gameState.isBlackKingInCheck()) {
-                // Checkmate - heavily penalize
-                return isMaximizing ? Integer.MIN_VALUE + 1000 : Integer.MAX_VALUE - 1000;
+    private static void moveToFront(int[] moves, int move) {
+        for (int i = 0; i < moves.length; i++) {
+            if (moves[i] == move) {
+                System.arraycopy(moves, 0, moves, 1, i);
+                moves[0] = move;
+                return;
             }
-            return 0; // Stalemate
         }
+    }
 
-        if (isMaximizing) {
-            int maxEval = Integer.MIN_VALUE;
-            for (Move move : moves) {
-                ChessPiece piece = gameState.getPieceAt(move.fromFile, move.fromRank);
-                ChessPiece captured = gameState.makeHypotheticalMove(
-                        move.fromFile, move.fromRank, move.toFile, move.toRank);
+    /**
+     * One node of the Young Brothers Wait search. The eldest brother (the
+     * first move) is searched serially; once its score has tightened the
+     * window, the younger brothers are forked together, each on its own copy
+     * of the board. Their results are combined in move order, and a brother
+     * that fails high cancels the brothers after it.
+     *
+     * All younger brothers are searched with the same window and nodes near
+     * the leaves are searched serially without the transposition table, so
+     * scores and node counts do not depend on scheduling. Work done by
+     * brothers after a cutoff is discarded, not counted.
+     */
+    private class YoungBrothersTask extends RecursiveTask<Integer> {
 
-                int eval = minimax(gameState, depth - 1, alpha, beta, false);
+        // Tasks are never serialized; ForkJoinTask is Serializable regardless.
+        private static final long serialVersionUID = 1L;
 
-                gameState.undoHypotheticalMove(
-                        move.fromFile, move.fromRank, move.toFile, move.toRank, piece, captured);
+        private final YoungBrothersTask parent;
+        private final transient BitboardPosition position;
+        private final int[] moves;
+        private final int depth, alpha, beta, ply;
+        private volatile boolean cancelled;
+        private long nodes;
+        private int bestMove;
 
-                maxEval = Math.max(maxEval, eval);
-                alpha = Math.max(alpha, eval);
+        /**
+         * @param parent       the task to check for cancellation, null at the root.
+         * @param position     a board owned by this task.
+         * @param moves        the moves to search, or null to generate them.
+         * @param depth
+         * @param alpha
+         * @param beta
+         * @param ply
+         */
+        YoungBrothersTask(YoungBrothersTask parent, BitboardPosition position, int[] moves,
+                int depth, int alpha, int beta, int ply) {
+            this.parent = parent;
+            this.position = position;
+            this.moves = moves;
+            this.depth = depth;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.ply = ply;
+        }
 
-                if (beta <= alpha) {
-                    break; // Beta cutoff - prune this branch
+        /**
+         * @return true if this task or one of its ancestors was cut off.
+         */
+        boolean isAborted() {
+            for (YoungBrothersTask task = this; task != null; task = task.parent) {
+                if (task.cancelled) {
+                    return true;
                 }
             }
-            return maxEval;
-        } else {
-            int minEval = Integer.MAX_VALUE;
-            for (Move move : moves) {
-                ChessPiece piece = gameState.getPieceAt(move.fromFile, move.fromRank);
-                ChessPiece captured = gameState.makeHypotheticalMove(
-                        move.fromFile, move.fromRank, move.toFile, move.toRank);
+            return false;
+        }
 
-                int eval = minimax(gameState, depth - 1, alpha, beta, true);
+        @Override
+        protected Integer compute() {
+            if (isAborted()) {
+                return 0;
+            }
+            if (depth <= SERIAL_DEPTH && moves == null) {
+                SearchWorker worker = youngBrothersWorkers.get().forTask(this);
+                int score = worker.negamax(position, depth, alpha, beta, ply, false);
+                nodes = worker.nodes;
+                return score;
+            }
 
-                gameState.undoHypotheticalMove(
-                        move.fromFile, move.fromRank, move.toFile, move.toRank, piece, captured);
+            nodes = 1;
+            int[] children = moves;
+            if (children == null) {
+                children = getAllLegalMoves(position);
+                if (children.length == 0) {
+                    return mateOrStalemate(position, ply);
+                }
+                youngBrothersWorkers.get().forTask(this).sortMoves(position, children, children.length, ply, 0);
+            }
 
-                minEval = Math.min(minEval, eval);
-                beta = Math.min(beta, eval);
+            // The eldest brother is searched alone.
+            YoungBrothersTask eldest = child(children[0], -beta, -alpha);
+            int best = -eldest.invoke();
+            nodes += eldest.nodes;
+            bestMove = children[0];
+            int windowAlpha = Math.max(alpha, best);
+            if (windowAlpha >= beta || children.length == 1) {
+                return best;
+            }
 
-                if (beta <= alpha) {
-                    break; // Alpha cutoff - prune this branch
+            // Then the younger brothers in parallel.
+            List<YoungBrothersTask> brothers = new ArrayList<>();
+            for (int i = 1; i < children.length; i++) {
+                brothers.add(child(children[i], -beta, -windowAlpha));
+            }
+            for (int i = brothers.size() - 1; i > 0; i--) {
+                brothers.get(i).fork();
+            }
+            for (int i = 0; i < brothers.size(); i++) {
+                YoungBrothersTask brother = brothers.get(i);
+                int score = -(i == 0 ? brother.invoke() : brother.join());
+                nodes += brother.nodes;
+                if (score > best) {
+                    best = score;
+                    bestMove = children[i + 1];
+                }
+                if (best >= beta) {
+                    for (int j = i + 1; j < brothers.size(); j++) {
+                        brothers.get(j).cancelled = true;
+                    }
+                    for (int j = i + 1; j < brothers.size(); j++) {
+                        brothers.get(j).join(); // Let the cancelled brothers wind down.
+                    }
+                    break;
                 }
             }
-            return minEval;
+            return best;
+        }
+
+        private YoungBrothersTask child(int move, int childAlpha, int childBeta) {
+            BitboardPosition copy = new BitboardPosition(position);
+            copy.makeMove(move);
+            return new YoungBrothersTask(this, copy, null, depth - 1, childAlpha, childBeta, ply + 1);
         }
     }
 
     /**
-     * Evaluates the current board position.
-     * Higher score = better for AI, lower = better for opponent.
-     * 
-     * @param gameState
-     * @return
+     * One search thread's state: its killers and history, node count, stop
+     * flag and a move list per ply, reused so that searching a node allocates
+     * nothing. Lazy SMP helpers each own a SearchWorker and their own copy of
+     * the board and evaluator; all workers share the transposition table.
      */
-    private int evaluateBoard(GameState gameState) {
-        int score = 0;
+    private class SearchWorker {
+
+        private final MoveOrdering moveOrdering = new MoveOrdering();
+        private final int[][] moveStack = new int[MoveOrdering.MAX_PLY][MoveGenerator.MAX_MOVES];
+        private final int[][] scoreStack = new int[MoveOrdering.MAX_PLY][MoveGenerator.MAX_MOVES];
+        private final MovePicker[] movePickers = new MovePicker[MoveOrdering.MAX_PLY];
+        private final StaticExchange staticExchange = new StaticExchange();
+        private final Evaluator evaluator = evaluatorFactory.get();
+        // Triangular PV table: row ply holds the best line found from that ply on.
+        private final int[][] pvTable = new int[MoveOrdering.MAX_PLY + 1][MoveOrdering.MAX_PLY + 1];
+        private final int[] pvLength = new int[MoveOrdering.MAX_PLY + 1];
+        // Set by a parent for a child that must not try a null move; read and cleared on entry.
+        private final boolean[] nullMoveBanned = new boolean[MoveOrdering.MAX_PLY + 1];
+        private int[] principalVariation = new int[0];
+        private int rootScore;
+        private final boolean isHelper;
+        private final int startDepth;
+        private YoungBrothersTask task;
+        private long nodes;
+        private int completedDepth;
+        private boolean stopped;
+
+        /**
+         * @param isHelper   helpers only stop when told to or out of time.
+         * @param startDepth the first iteration's depth, staggered between helpers.
+         */
+        SearchWorker(boolean isHelper, int startDepth) {
+            this.isHelper = isHelper;
+            this.startDepth = startDepth;
+            for (int ply = 0; ply < movePickers.length; ply++) {
+                movePickers[ply] = new MovePicker(moveOrdering);
+            }
+        }
+
+        /**
+         * Readies this worker for the serial part of a Young Brothers Wait
+         * search. It starts with empty killers and history, skips the shared
+         * transposition table, whose contents depend on timing, and stops when
+         * its task is cancelled.
+         * 
+         * @param task
+         * @return this worker.
+         */
+        SearchWorker forTask(YoungBrothersTask task) {
+            this.task = task;
+            this.nodes = 0;
+            this.stopped = false;
+            moveOrdering.clear();
+            return this;
+        }
 
-        for (int rank = 0; rank < 8; rank++) {
-            for (int file = 0; file < 8; file++) {
-                ChessPiece piece = gameState.getPieceAt(file, rank);
-                if (piece != null) {
-                    int pieceValue = getPieceValue(piece);
-                    int positionalValue = getPositionalValue(piece, file, rank);
+        /**
+         * Searches one ply deeper on each iteration until a limit is reached. Each
+         * iteration starts from the previous iteration's best move, and the best
+         * move of the last completed iteration is returned.
+         * 
+         * From ASPIRATION_MIN_DEPTH on, an iteration first searches a narrow
+         * window around the previous score, which cuts off far more; if the score
+         * falls outside it, the window is widened on that side and the iteration
+         * searched again.
+         * 
+         * @param position
+         * @param moves
+         * @return
+         */
+        private int iterativeDeepening(BitboardPosition position, int[] moves) {
+            nodes = 0;
+            completedDepth = 0;
+            stopped = false;
+            principalVariation = new int[0];
+            moveOrdering.newSearch();
 
-                    int totalValue = pieceValue + positionalValue;
+            // With only one legal move there is nothing to think about.
+            if (moves.length == 1) {
+                principalVariation = new int[] { moves[0] };
+                return moves[0];
+            }
 
-                    // Positive for AI's pieces, negative for opponent's
-                    if (piece.isWhite() == this.isWhite) {
-                        score += totalValue;
+            int[] rootMoves = moves.clone();
+            sortMoves(position, rootMoves, rootMoves.length, 0, 0);
+            int bestMove = MoveEncoding.NO_MOVE;
+            int score = 0;
+            for (int depth = startDepth; depth <= limits.maxDepth(); depth++) {
+                int delta = ASPIRATION_WINDOW;
+                int alpha = -INFINITY;
+                int beta = INFINITY;
+                if (depth >= ASPIRATION_MIN_DEPTH && !isMateScore(score)) {
+                    alpha = score - delta;
+                    beta = score + delta;
+                }
+                int iterationBest;
+                while (true) {
+                    iterationBest = searchRoot(position, rootMoves, depth, alpha, beta);
+                    if (stopped) {
+                        break;
+                    }
+                    if (rootScore <= alpha && alpha > -INFINITY) {
+                        alpha = Math.max(-INFINITY, rootScore - delta);
+                    } else if (rootScore >= beta && beta < INFINITY) {
+                        beta = Math.min(INFINITY, rootScore + delta);
                     } else {
-                        score -= totalValue;
+                        break;
                     }
+                    delta *= 2;
                 }
+                if (stopped) {
+                    break; // The unfinished iteration's result is not trustworthy.
+                }
+                bestMove = iterationBest;
+                score = rootScore;
+                completedDepth = depth;
+                principalVariation = Arrays.copyOf(pvTable[0], pvLength[0]);
+                moveToFront(rootMoves, bestMove);
             }
+            return bestMove;
         }
 
-        // Additional strategic factors
-        score += evaluateCenterControl(gameState);
-        score += evaluateKingSafety(gameState);
+        /**
+         * Searches the root moves with principal variation search: the first move
+         * with the full window, the others with a null window that only proves
+         * they are no better, re-searched in full if one turns out to be.
+         * 
+         * @param position
+         * @param moves
+         * @param depth
+         * @param alpha
+         * @param beta
+         * @return NO_MOVE if the search was stopped before any move was scored.
+         *         The move's score is left in rootScore.
+         */
+        private int searchRoot(BitboardPosition position, int[] moves, int depth, int alpha, int beta) {
+            int bestMove = MoveEncoding.NO_MOVE;
+            int bestScore = -INFINITY;
+            pvLength[0] = 0;
 
-        return score;
-    }
+            for (int i = 0; i < moves.length; i++) {
+                int move = moves[i];
+                position.makeMove(move);
+                int score;
+                if (i == 0) {
+                    score = -negamax(position, depth - 1, -beta, -alpha, 1, true);
+                } else {
+                    score = -negamax(position, depth - 1, -alpha - 1, -alpha, 1, false);
+                    if (score > alpha && score < beta) {
+                        score = -negamax(position, depth - 1, -beta, -alpha, 1, true);
+                    }
+                }
+                position.unmakeMove();
 
-    /**
-     * Gets the material value of a piece.
-     * 
-     * @param piece
-     * @return
-     */
-    private int getPieceValue(ChessPiece piece) {
-        return switch (piece.getPieceType()) {
-            case PAWN -> 100;
-            case KNIGHT -> 320;
-            case BISHOP -> 330;
-            case ROOK -> 500;
-            case QUEEN -> 900;
-            case KING -> 20000;
-        };
-    }
+                if (stopped) {
+                    break;
+                }
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMove = move;
+                    if (score > alpha) {
+                        alpha = score;
+                        updatePrincipalVariation(0, move);
+                    }
+                }
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+            rootScore = bestScore;
+            return bestMove;
+        }
 
-    /**
-     * Gets positional bonus based on piece-square tables.
-     * 
-     * @param piece
-     * @param file
-     * @param rank
-     * @return
-     */
-    private int getPositionalValue(ChessPiece piece, int file, int rank) {
-        // Flip rank for black pieces (they play from opposite side)
-        int tableRank = piece.isWhite() ? (7 - rank) : rank;
-
-        return switch (piece.getPieceType()) {
-            case PAWN -> PAWN_TABLE[tableRank][file];
-            case KNIGHT -> KNIGHT_TABLE[tableRank][file];
-            case KING -> KING_TABLE_MIDGAME[tableRank][file];
-            default -> 0;
-        };
-    }
+        /**
+         * Checks the node and time budgets. The main thread's first iteration
+         * always runs to completion so there is a move to play; helpers stop as
+         * soon as the main thread has finished or time is up.
+         * 
+         * @return true if the search must stop.
+         */
+        private boolean shouldStop() {
+            nodes++;
+            if (stopped) {
+                return true;
+            }
+            if (isHelper) {
+                // The main thread may still be finishing its first iteration past the deadline.
+                stopped = stopHelpers
+                        || (nodes % NODES_BETWEEN_CLOCK_CHECKS == 0 && System.nanoTime() >= deadline);
+                return stopped;
+            }
+            if (task != null) {
+                stopped = nodes % 64 == 0 && task.isAborted();
+                return stopped;
+            }
+            if (completedDepth == 0) {
+                return false;
+            }
+            if (limits.nodeBudget() > 0 && nodes >= limits.nodeBudget()) {
+                stopped = true;
+            } else if (nodes % NODES_BETWEEN_CLOCK_CHECKS == 0 && System.nanoTime() >= deadline) {
+                stopped = true;
+            }
+            return stopped;
+        }
 
-    /**
-     * Bonus for controlling the center of the board.
-     * 
-     * @param gameState
-     * @return
-     */
-    private int evaluateCenterControl(GameState gameState) {
-        int score = 0;
-        int[] centerFiles = { 3, 4 };
-        int[] centerRanks = { 3, 4 };
-
-        for (int file : centerFiles) {
-            for (int rank : centerRanks) {
-                ChessPiece piece = gameState.getPieceAt(file, rank);
-                if (piece != null) {
-                    int bonus = 10;
-                    if (piece.isWhite() == this.isWhite) {
-                        score += bonus;
-                    } else {
-                        score -= bonus;
+        /**
+         * Negamax principal variation search: scores are from the point of view
+         * of the side to move, so each level negates its children's scores. The
+         * first move of a PV node gets the full window; later moves get a null
+         * window around alpha, enough to show they are no better, and are only
+         * searched again with the full window when they turn out to be. Nodes off
+         * the principal variation only ever see null windows.
+         * 
+         * Away from the principal variation and out of check, the selective
+         * techniques in {@link SearchOptions} may cut the node off early or search
+         * some moves less deeply.
+         * 
+         * @param position
+         * @param depth
+         * @param alpha
+         * @param beta
+         * @param ply      distance from the root.
+         * @param isPvNode true if the node may lie on the principal variation.
+         * @return
+         */
+        private int negamax(BitboardPosition position, int depth, int alpha, int beta, int ply, boolean isPvNode) {
+            boolean mayNullMove = !nullMoveBanned[ply];
+            nullMoveBanned[ply] = false;
+            if (shouldStop()) {
+                return 0;
+            }
+            pvLength[ply] = ply;
+
+            // Nobody can mate any more: nothing below can change the draw.
+            if (MaterialTable.isDraw(MaterialTable.probe(position))) {
+                return 0;
+            }
+
+            // Base case: reached maximum depth, settle the captures first
+            if (depth == 0) {
+                return quiescence(position, alpha, beta, ply);
+            }
+
+            // Transposition table: reuse a result if it was searched deep enough.
+            // PV nodes search on, so the full line is known.
+            long key = position.getHash();
+            long entry = task == null ? transpositionTable.probe(key) : 0;
+            if (!isPvNode && entry != 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                switch (TranspositionTable.bound(entry)) {
+                    case TranspositionTable.BOUND_EXACT -> {
+                        return score;
+                    }
+                    case TranspositionTable.BOUND_LOWER -> {
+                        if (score >= beta) {
+                            return score;
+                        }
+                    }
+                    case TranspositionTable.BOUND_UPPER -> {
+                        if (score <= alpha) {
+                            return score;
+                        }
+                    }
+                    default -> {
                     }
                 }
             }
-        }
+            int originalAlpha = alpha;
+            int hashMove = entry != 0 ? TranspositionTable.move(entry) : 0;
 
-        return score;
-    }
+            boolean inCheck = MoveGenerator.isInCheck(position, position.isWhiteToMove());
+            boolean isSelective = !isPvNode && !inCheck;
+            int staticEval = isSelective ? evaluator.evaluate(position, alpha, beta) : 0;
 
-    /**
-     * Penalty for being in check.
-     * 
-     * @param gameState
-     * @return
-     */
-    private int evaluateKingSafety(GameState gameState) {
-        int score = 0;
+            // Reverse futility: so far above beta that a few plies will not bring it back.
+            if (isSelective && options.futilityPruning() && depth <= REVERSE_FUTILITY_MAX_DEPTH
+                    && !isMateScore(beta) && staticEval - REVERSE_FUTILITY_MARGIN * depth >= beta) {
+                return staticEval - REVERSE_FUTILITY_MARGIN * depth;
+            }
 
-        if (this.isWhite && gameState.isWhiteKingInCheck()) {
-            score -= 50;
-        } else if (!this.isWhite && gameState.isBlackKingInCheck()) {
-            score -= 50;
+            // Null move: if passing the turn still fails high, a real move surely would.
+            if (isSelective && options.nullMovePruning() && mayNullMove && depth >= NULL_MOVE_MIN_DEPTH
+                    && staticEval >= beta && !isMateScore(beta)) {
+                long pieces = nonPawnPieces(position);
+                if (pieces != 0) {
+                    int reduction = 2 + depth / 4;
+                    position.makeNullMove();
+                    nullMoveBanned[ply + 1] = true;
+                    int score = -negamax(position, Math.max(0, depth - 1 - reduction), -beta, -beta + 1, ply + 1,
+                            false);
+                    position.unmakeMove();
+                    if (stopped) {
+                        return 0;
+                    }
+                    if (score >= beta) {
+                        // With a lone piece zugzwang is likely: check with a reduced normal search.
+                        if (Long.bitCount(pieces) > 1) {
+                            return isMateScore(score) ? beta : score;
+                        }
+                        nullMoveBanned[ply] = true;
+                        int verified = negamax(position, depth - reduction, beta - 1, beta, ply, false);
+                        if (stopped) {
+                            return 0;
+                        }
+                        if (verified >= beta) {
+                            return isMateScore(verified) ? beta : verified;
+                        }
+                    }
+                }
+            }
+
+            // Moves come in stages, so a node that cuts off early never generates the rest.
+            MovePicker movePicker = movePickers[ply];
+            movePicker.reset(position, hashMove, ply);
+
+            int bestScore = -INFINITY;
+            int bestMove = MoveEncoding.NO_MOVE;
+            int movesSearched = 0;
+            int move;
+            while ((move = movePicker.next()) != MoveEncoding.NO_MOVE) {
+                boolean isQuiet = !MoveEncoding.isCapture(move) && !MoveEncoding.isPromotion(move);
+                boolean mayPrune = isSelective && isQuiet && movesSearched > 0
+                        && !MoveGenerator.givesCheck(position, move);
+
+                // Futility: a quiet move cannot lift a hopeless score to alpha this close to the leaves.
+                if (mayPrune && options.futilityPruning() && depth < FUTILITY_MARGINS.length
+                        && staticEval + FUTILITY_MARGINS[depth] <= alpha) {
+                    continue;
+                }
+
+                position.makeMove(move);
+                int score;
+                if (movesSearched == 0) {
+                    score = -negamax(position, depth - 1, -beta, -alpha, ply + 1, isPvNode);
+                } else {
+                    // Late move reductions: a quiet move ordered this late is first searched shallower.
+                    int reduction = 0;
+                    if (mayPrune && options.lateMoveReductions() && depth >= LMR_MIN_DEPTH
+                            && movesSearched >= LMR_FULL_DEPTH_MOVES) {
+                        reduction = movesSearched >= 2 * LMR_FULL_DEPTH_MOVES && depth >= 6 ? 2 : 1;
+                    }
+                    score = -negamax(position, depth - 1 - reduction, -alpha - 1, -alpha, ply + 1, false);
+                    if (score > alpha && reduction > 0) {
+                        score = -negamax(position, depth - 1, -alpha - 1, -alpha, ply + 1, false);
+                    }
+                    if (score > alpha && score < beta) {
+                        score = -negamax(position, depth - 1, -beta, -alpha, ply + 1, true);
+                    }
+                }
+                position.unmakeMove();
+                movesSearched++;
+                if (stopped) {
+                    return 0;
+                }
+
+                if (score > bestScore || bestMove == MoveEncoding.NO_MOVE) {
+                    bestScore = score;
+                    bestMove = move;
+                    if (score > alpha) {
+                        alpha = score;
+                        if (isPvNode) {
+                            updatePrincipalVariation(ply, move);
+                        }
+                    }
+                }
+                if (alpha >= beta) {
+                    if (!MoveEncoding.isCapture(move)) {
+                        moveOrdering.recordCutoff(MoveEncoding.fromTo(move), ply, position.isWhiteToMove(),
+                                MoveEncoding.from(move), MoveEncoding.to(move), depth);
+                    }
+                    break; // Cutoff - prune this branch
+                }
+            }
+            if (bestMove == MoveEncoding.NO_MOVE) {
+                return mateOrStalemate(position, ply);
+            }
+            storeResult(key, depth, bestScore, originalAlpha, beta, bestMove, ply);
+            return bestScore;
         }
 
-        return score;
-    }
+        /**
+         * Makes a move followed by its child's line the line of this ply.
+         */
+        private void updatePrincipalVariation(int ply, int move) {
+            pvTable[ply][ply] = move;
+            int childLength = pvLength[ply + 1];
+            System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, childLength - (ply + 1));
+            pvLength[ply] = Math.max(childLength, ply + 1);
+        }
 
-    /**
-     * Gets all legal moves for the AI's pieces.
-     * 
-     * @param gameState
-     * @return
-     */
-    private List<Move> getAllLegalMoves(GameState gameState) {
-        List<Move> moves = new ArrayList<>();
-
-        for (int rank = 0; rank < 8; rank++) {
-            for (int file = 0; file < 8; file++) {
-                ChessPiece piece = gameState.getPieceAt(file, rank);
-                if (piece != null && piece.isWhite() == this.isWhite) {
-                    List<Point> legalMoves = gameState.getLegalMovesForPiece(file, rank);
-                    for (Point to : legalMoves) {
-                        moves.add(new Move(file, rank, to.x, to.y));
+        /**
+         * Quiescence search: keeps searching captures and promotions past the depth
+         * limit so positions are only evaluated once they are quiet, which avoids
+         * horizon blunders in the middle of an exchange.
+         * 
+         * The side to move may "stand pat" on the static evaluation instead of
+         * capturing, so that score bounds the node. Captures that cannot bring the
+         * score back to the window even after winning the victim plus a margin
+         * are skipped (delta pruning), as are captures that static exchange
+         * evaluation says lose material. A side in check can do neither: it
+         * searches every legal evasion, and is mated if there is none.
+         * 
+         * @param position
+         * @param alpha
+         * @param beta
+         * @param ply
+         * @return the score for the side to move.
+         */
+        private int quiescence(BitboardPosition position, int alpha, int beta, int ply) {
+            if (shouldStop()) {
+                return 0;
+            }
+            if (ply >= MoveOrdering.MAX_PLY) {
+                return evaluator.evaluate(position, alpha, beta);
+            }
+
+            int[] moves = moveStack[ply];
+            int count;
+            int standPat;
+            int bestScore;
+            boolean inCheck = MoveGenerator.isInCheck(position, position.isWhiteToMove());
+            if (inCheck) {
+                // No standing pat in check: every evasion is searched, and having none is mate.
+                count = MoveGenerator.generateLegal(position, position.isWhiteToMove(), moves, 0);
+                if (count == 0) {
+                    return -MATE_SCORE + ply;
+                }
+                standPat = -INFINITY;
+                bestScore = -INFINITY;
+            } else {
+                standPat = evaluator.evaluate(position, alpha, beta);
+                if (standPat >= beta) {
+                    return standPat;
+                }
+                alpha = Math.max(alpha, standPat);
+                count = MoveGenerator.generateLegalCaptures(position, position.isWhiteToMove(), moves, 0);
+                bestScore = standPat;
+            }
+            scoreMoves(position, moves, count, ply, 0);
+
+            for (int i = 0; i < count; i++) {
+                int move = pickMove(moves, scoreStack[ply], i, count);
+
+                // Delta pruning: even winning this piece cannot reach the window.
+                if (!inCheck && !MoveEncoding.isPromotion(move)) {
+                    int gain = getPieceValue(Bitboards.pieceType(MoveEncoding.captured(move))) + DELTA_MARGIN;
+                    if (standPat + gain <= alpha) {
+                        continue;
+                    }
+                    if (staticExchange.evaluate(position, move) < 0) {
+                        continue;
+                    }
+                }
+
+                position.makeMove(move);
+                int score = -quiescence(position, -beta, -alpha, ply + 1);
+                position.unmakeMove();
+                if (stopped) {
+                    return 0;
+                }
+
+                if (score > bestScore) {
+                    bestScore = score;
+                    if (score > alpha) {
+                        alpha = score;
+                        if (alpha >= beta) {
+                            break;
+                        }
                     }
                 }
             }
+            return bestScore;
         }
 
-        return moves;
-    }
+        /**
+         * Scores moves so the likeliest best moves are searched first: the hash
+         * move, then captures by MVV-LVA, then killers and history-ranked quiet
+         * moves. The scores go in this ply's score array, for {@link #pickMove}.
+         * 
+         * @param position
+         * @param moves
+         * @param count
+         * @param ply
+         * @param hashMove  the from-to of the transposition table move, 0 if none.
+         */
+        private void scoreMoves(BitboardPosition position, int[] moves, int count, int ply, int hashMove) {
+            int[] scores = scoreStack[ply];
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                int piece = MoveEncoding.piece(move);
+                if (MoveEncoding.fromTo(move) == hashMove) {
+                    scores[i] = MoveOrdering.HASH_MOVE_SCORE;
+                } else if (MoveEncoding.isCapture(move)) {
+                    scores[i] = MoveOrdering.captureScore(Bitboards.pieceType(MoveEncoding.captured(move)),
+                            Bitboards.pieceType(piece));
+                } else {
+                    scores[i] = moveOrdering.quietScore(MoveEncoding.fromTo(move), ply, Bitboards.isWhite(piece),
+                            MoveEncoding.from(move), MoveEncoding.to(move));
+                }
+            }
+        }
 
-    public boolean isWhite() {
-        return this.isWhite;
-    }
+        /**
+         * Sorts a whole move list by score, for the root where every move is
+         * searched anyway.
+         */
+        private void sortMoves(BitboardPosition position, int[] moves, int count, int ply, int hashMove) {
+            scoreMoves(position, moves, count, ply, hashMove);
+            for (int i = 0; i < count; i++) {
+                pickMove(moves, scoreStack[ply], i, count);
+            }
+        }
 
-    /**
-     * Inner class to represent a move.
-     */
-    private static class Move {
-        final int fromFile, fromRank, toFile, toRank;
+        /**
+         * Selection sort one step at a time: swaps the best scored of the
+         * remaining moves into place. A cutoff usually comes early, so most of
+         * the list never needs sorting.
+         * 
+         * @return the move now at index.
+         */
+        private int pickMove(int[] moves, int[] scores, int index, int count) {
+            int best = index;
+            for (int i = index + 1; i < count; i++) {
+                if (scores[i] > scores[best]) {
+                    best = i;
+                }
+            }
+            int move = moves[best];
+            moves[best] = moves[index];
+            moves[index] = move;
+            int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+            return move;
+        }
 
-        Move(int fromFile, int fromRank, int toFile, int toRank) {
-            this.fromFile = fromFile;
-            this.fromRank = fromRank;
-            this.toFile = toFile;
-            this.toRank = toRank;
+        /**
+         * Saves a node's result in the transposition table, with its bound type
+         * taken from where the score fell relative to the original window.
+         * 
+         * @param key
+         * @param depth
+         * @param score
+         * @param alpha
+         * @param beta
+         * @param bestMove
+         * @param ply
+         */
+        private void storeResult(long key, int depth, int score, int alpha, int beta, int bestMove, int ply) {
+            if (task != null) {
+                return;
+            }
+            int bound;
+            if (score <= alpha) {
+                bound = TranspositionTable.BOUND_UPPER;
+            } else if (score >= beta) {
+                bound = TranspositionTable.BOUND_LOWER;
+            } else {
+                bound = TranspositionTable.BOUND_EXACT;
+            }
+            transpositionTable.store(key, depth, bound, scoreToTable(score, ply), MoveEncoding.fromTo(bestMove));
         }
     }
-}
\ No newline at end of file
+
+    public boolean isWhite() {
+        return this.isWhite;
+    }
+}
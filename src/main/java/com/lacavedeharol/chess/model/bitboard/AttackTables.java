@@ -0,0 +1,245 @@
+package com.lacavedeharol.chess.model.bitboard;
+
+import static com.lacavedeharol.chess.model.bitboard.Bitboards.*;
+
+/**
+ * Precomputed attack sets. Knights, kings and pawns use plain per-square
+ * tables; rooks and bishops use magic bitboards, where the blockers on a
+ * sliding piece's rays are hashed by a multiply-and-shift into a table that
+ * holds the full attack set for that occupancy. Every lookup is a constant
+ * number of array reads whatever the position looks like. The magics are
+ * constants found offline by {@link MagicFinder}; only the tables are built
+ * when the class loads.
+ */
+public final class AttackTables {
+
+    private static final int[][] ROOK_DIRECTIONS = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+    private static final int[][] BISHOP_DIRECTIONS = { { 1, 1 }, { 1, -1 }, { -1, 1 }, { -1, -1 } };
+    private static final int[][] KNIGHT_OFFSETS = {
+            { 1, 2 }, { 2, 1 }, { 2, -1 }, { 1, -2 }, { -1, -2 }, { -2, -1 }, { -2, 1 }, { -1, 2 } };
+    private static final int[][] KING_OFFSETS = {
+            { 1, 0 }, { 1, 1 }, { 0, 1 }, { -1, 1 }, { -1, 0 }, { -1, -1 }, { 0, -1 }, { 1, -1 } };
+
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+    // Found by MagicFinder, which can regenerate them.
+    private static final long[] ROOK_MAGICS = {
+            0x1080004008801020L, 0x0840092002C03000L, 0x1900200010400900L, 0x0880100008000480L,
+            0x4200100420080200L, 0x8100020100080400L, 0x0200040110886200L, 0x0200008040220411L,
+            0x0404800084400220L, 0x0000401000402000L, 0x0086001081220440L, 0x0408800800100280L,
+            0x000A001201040820L, 0x8848800200840080L, 0x4001000100040200L, 0x0442000102105084L,
+            0x9080010020804100L, 0x0040404000201009L, 0x0000808010002009L, 0x2200090021D00100L,
+            0x0008008008040080L, 0x0004004002010040L, 0x0011040008015042L, 0x00000A0001768104L,
+            0x0000800080204009L, 0x2010004140002001L, 0x9800200280100080L, 0x1000100080080080L,
+            0x0050500500080100L, 0x0000020080040080L, 0x0C10010400420810L, 0x1040008200005104L,
+            0x01808240088004A0L, 0x0882804004802000L, 0x0880402001001100L, 0x2000210409001000L,
+            0x2000480131001500L, 0x0000800400800200L, 0x000002380C001003L, 0x4600084882000431L,
+            0x0080002000504000L, 0x0300500020004002L, 0x0040408200220011L, 0x0010040008004040L,
+            0x0000080004008080L, 0x0010040002008080L, 0x2012004881020004L, 0x8300842444820011L,
+            0x0088403882010200L, 0x0820400080210100L, 0x0110910040A00300L, 0x0801100280080480L,
+            0x0242009008200600L, 0x1002000489500200L, 0x0040800200010080L, 0x0091800041000080L,
+            0x0000209300488001L, 0x04C1002414824001L, 0x020020000B001041L, 0x7000100004200901L,
+            0x8002002004100802L, 0x30010002084C0007L, 0x0888221800813004L, 0x4000002840840112L };
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+
+    private static final long[] BISHOP_MAGICS = {
+            0x20C0090901061081L, 0x0024040094030104L, 0x8210810200290200L, 0x0011040484620000L,
+            0x0081104002221000L, 0x0009012011001350L, 0x0081010802400380L, 0x0000420210010408L,
+            0x0008105002280050L, 0x0001028484040044L, 0x2A00880810408804L, 0x7020022282000100L,
+            0x0084040420100A50L, 0x000401010840E000L, 0x2020020210420888L, 0x0008084202012010L,
+            0x2010400810018800L, 0x0445122008020840L, 0x0804100808002008L, 0x0008002104110100L,
+            0x0061005820080800L, 0x2001000200820100L, 0x480C210084010800L, 0x3004442500480420L,
+            0x1010102240048100L, 0x00182009084220A3L, 0x8803090A10004205L, 0x0208080040202020L,
+            0x000C044084010040L, 0x00A1010002004106L, 0x6008210020640202L, 0x1600902112860801L,
+            0x00042008C1220200L, 0x010C042002440140L, 0x5022080200040820L, 0x0402004042940100L,
+            0x0860108400008020L, 0x000C080022021000L, 0x0264080652822100L, 0x4005031221010401L,
+            0x0004502410008400L, 0x000500B010A20400L, 0x0415094050080800L, 0x080000201800A104L,
+            0x4022A80304000110L, 0x4012140802028020L, 0x40200104010100A0L, 0x12810806008B0C41L,
+            0x0020441008080000L, 0x2002120084045420L, 0x0704020062080002L, 0x0000001084040001L,
+            0x0322200891240200L, 0xF040200210024800L, 0x0140824832008042L, 0x000210020A004602L,
+            0x0083042805141020L, 0x002C12009A011000L, 0x0041A00044140400L, 0x00004004020A0202L,
+            0x0000140010020210L, 0x2864160811012200L, 0x2060080841082A17L, 0xA010041108003100L };
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    // Squares strictly between two squares on a line, and the whole line through them.
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            int file = fileOf(square);
+            int rank = rankOf(square);
+            KNIGHT_ATTACKS[square] = offsetAttacks(file, rank, KNIGHT_OFFSETS);
+            KING_ATTACKS[square] = offsetAttacks(file, rank, KING_OFFSETS);
+            // White pawns advance towards rank 0, black pawns towards rank 7.
+            PAWN_ATTACKS[WHITE][square] = offsetAttacks(file, rank, new int[][] { { -1, -1 }, { 1, -1 } });
+            PAWN_ATTACKS[BLACK][square] = offsetAttacks(file, rank, new int[][] { { -1, 1 }, { 1, 1 } });
+
+            initMagic(square, true, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_TABLE);
+            initMagic(square, false, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_TABLE);
+        }
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b) {
+                    continue;
+                }
+                if ((rookAttacks(a, 0) & bit(b)) != 0) {
+                    BETWEEN[a][b] = rookAttacks(a, bit(b)) & rookAttacks(b, bit(a));
+                    LINE[a][b] = (rookAttacks(a, 0) & rookAttacks(b, 0)) | bit(a) | bit(b);
+                } else if ((bishopAttacks(a, 0) & bit(b)) != 0) {
+                    BETWEEN[a][b] = bishopAttacks(a, bit(b)) & bishopAttacks(b, bit(a));
+                    LINE[a][b] = (bishopAttacks(a, 0) & bishopAttacks(b, 0)) | bit(a) | bit(b);
+                }
+            }
+        }
+    }
+
+    private AttackTables() {
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @return the squares a pawn of the given colour on this square captures on.
+     */
+    public static long pawnAttacks(boolean isWhite, int square) {
+        return PAWN_ATTACKS[isWhite ? WHITE : BLACK][square];
+    }
+
+    public static long rookAttacks(int square, long occupied) {
+        int index = (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_TABLE[square][index];
+    }
+
+    public static long bishopAttacks(int square, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_TABLE[square][index];
+    }
+
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /**
+     * @return the squares strictly between two squares on a rank, file or
+     *         diagonal, or 0 if they are not aligned.
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * @return the whole rank, file or diagonal through two squares, or 0 if
+     *         they are not aligned.
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    /**
+     * Returns the attack set of any piece code standing on a square.
+     */
+    public static long attacks(int piece, int square, long occupied) {
+        return switch (typeIndex(piece)) {
+            case 0 -> pawnAttacks(isWhite(piece), square);
+            case 1 -> bishopAttacks(square, occupied);
+            case 2 -> knightAttacks(square);
+            case 3 -> rookAttacks(square, occupied);
+            case 4 -> queenAttacks(square, occupied);
+            default -> kingAttacks(square);
+        };
+    }
+
+    private static long offsetAttacks(int file, int rank, int[][] offsets) {
+        long attacks = 0;
+        for (int[] offset : offsets) {
+            int f = file + offset[0];
+            int r = rank + offset[1];
+            if (f >= 0 && f < 8 && r >= 0 && r < 8) {
+                attacks |= bit(square(f, r));
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Walks the rays from a square, stopping at (and including) the first
+     * blocker. Used only to fill the magic tables.
+     */
+    static long slidingAttacks(int square, long occupied, boolean isRook) {
+        long attacks = 0;
+        for (int[] direction : isRook ? ROOK_DIRECTIONS : BISHOP_DIRECTIONS) {
+            int f = fileOf(square) + direction[0];
+            int r = rankOf(square) + direction[1];
+            while (f >= 0 && f < 8 && r >= 0 && r < 8) {
+                long target = bit(square(f, r));
+                attacks |= target;
+                if ((occupied & target) != 0) {
+                    break;
+                }
+                f += direction[0];
+                r += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * The squares whose occupancy can change the attack set: the rays without
+     * their final edge square.
+     */
+    static long relevantMask(int square, boolean isRook) {
+        long mask = 0;
+        for (int[] direction : isRook ? ROOK_DIRECTIONS : BISHOP_DIRECTIONS) {
+            int f = fileOf(square) + direction[0];
+            int r = rankOf(square) + direction[1];
+            while (f + direction[0] >= 0 && f + direction[0] < 8 && r + direction[1] >= 0 && r + direction[1] < 8) {
+                mask |= bit(square(f, r));
+                f += direction[0];
+                r += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Fills a square's attack table, checking on the way that its magic maps
+     * blocker subsets with different attack sets to different slots.
+     */
+    private static void initMagic(int square, boolean isRook, long[] masks, long[] magics, int[] shifts,
+            long[][] tables) {
+        long mask = relevantMask(square, isRook);
+        int bits = Long.bitCount(mask);
+        long[] table = new long[1 << bits];
+        boolean[] filled = new boolean[table.length];
+
+        // Enumerate every blocker subset of the mask (Carry-Rippler).
+        long subset = 0;
+        do {
+            long attacks = slidingAttacks(square, subset, isRook);
+            int index = (int) ((subset * magics[square]) >>> (64 - bits));
+            if (filled[index] && table[index] != attacks) {
+                throw new IllegalStateException("Bad " + (isRook ? "rook" : "bishop") + " magic for square " + square);
+            }
+            filled[index] = true;
+            table[index] = attacks;
+            subset = (subset - mask) & mask;
+        } while (subset != 0);
+
+        masks[square] = mask;
+        shifts[square] = 64 - bits;
+        tables[square] = table;
+    }
+}
@@ -0,0 +1,412 @@
+package com.lacavedeharol.chess.model.bitboard;
+
+import static com.lacavedeharol.chess.model.bitboard.Bitboards.*;
+
+import java.util.Arrays;
+
+import com.lacavedeharol.chess.model.PieceType;
+
+/**
+ * The engine core of the Model. Holds a chess position as twelve piece
+ * bitboards plus occupancy masks, with castling rights, the en passant square
+ * and the side to move kept as primitives. A mailbox array mirrors the piece
+ * sets so "what is on this square" is a single array read.
+ *
+ * Every mutator keeps the Zobrist hash and pawn key up to date
+ * incrementally, and adding or removing a piece also updates the material
+ * signature (see {@link MaterialKey}), the material and piece-square totals
+ * and the game phase (see {@link PieceSquareTables}), so evaluating a
+ * position does not have to walk its pieces.
+ *
+ * {@link #makeMove(int)} plays a whole move (see {@link MoveEncoding}) and
+ * pushes what it cannot recompute onto a primitive undo stack, so
+ * {@link #unmakeMove()} restores the previous position exactly, hash included,
+ * without copying the board.
+ */
+public class BitboardPosition {
+
+    // Castling rights that survive a move touching each square.
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, ALL_CASTLING);
+        CASTLING_MASK[square(4, 7)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[square(7, 7)] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[square(0, 7)] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[square(4, 0)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[square(7, 0)] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[square(0, 0)] &= ~BLACK_QUEENSIDE;
+    }
+
+    private static final int INITIAL_UNDO_CAPACITY = 128;
+
+    // Undo entry layout: castling rights (4) | en passant square + 1 (7) | halfmove clock.
+    private static final int UNDO_EN_PASSANT_SHIFT = 4;
+    private static final int UNDO_HALFMOVE_SHIFT = 11;
+
+    // Core State:
+    private final long[] pieceSets;
+    private final long[] occupancy;
+    private long occupied;
+    private final int[] board;
+    private boolean isWhiteToMove;
+    private int castlingRights;
+    private int enPassantSquare;
+    private int halfmoveClock;
+    private long hash;
+    private long pawnHash;
+    private long materialKey;
+    private int materialIndex;
+    private int midgameScore;
+    private int endgameScore;
+    private int phase;
+
+    // Undo stack, one entry per move made with makeMove.
+    private int[] undoMoves;
+    private int[] undoStates;
+    private long[] undoHashes;
+    private int undoCount;
+
+    public BitboardPosition() {
+        this.pieceSets = new long[12];
+        this.occupancy = new long[2];
+        this.board = new int[64];
+        Arrays.fill(board, EMPTY);
+        this.isWhiteToMove = true;
+        this.castlingRights = 0;
+        this.enPassantSquare = NO_SQUARE;
+        this.hash = Zobrist.castling(0);
+        initUndoStack();
+    }
+
+    /**
+     * Creates an independent copy of another position. The copy starts with
+     * an empty undo stack.
+     */
+    public BitboardPosition(BitboardPosition other) {
+        this.pieceSets = other.pieceSets.clone();
+        this.occupancy = other.occupancy.clone();
+        this.occupied = other.occupied;
+        this.board = other.board.clone();
+        this.isWhiteToMove = other.isWhiteToMove;
+        this.castlingRights = other.castlingRights;
+        this.enPassantSquare = other.enPassantSquare;
+        this.halfmoveClock = other.halfmoveClock;
+        this.hash = other.hash;
+        this.pawnHash = other.pawnHash;
+        this.materialKey = other.materialKey;
+        this.materialIndex = other.materialIndex;
+        this.midgameScore = other.midgameScore;
+        this.endgameScore = other.endgameScore;
+        this.phase = other.phase;
+        initUndoStack();
+    }
+
+    private void initUndoStack() {
+        this.undoMoves = new int[INITIAL_UNDO_CAPACITY];
+        this.undoStates = new int[INITIAL_UNDO_CAPACITY];
+        this.undoHashes = new long[INITIAL_UNDO_CAPACITY];
+        this.undoCount = 0;
+    }
+
+    /**
+     * Plays a move: captures (en passant included), promotion, the castling
+     * rook, castling rights, the en passant square, the halfmove clock and the
+     * side to move.
+     *
+     * @param move a move for the side to move, as generated by MoveGenerator.
+     */
+    public void makeMove(int move) {
+        pushUndo(move);
+
+        int from = MoveEncoding.from(move);
+        int to = MoveEncoding.to(move);
+        int piece = MoveEncoding.piece(move);
+        int captured = MoveEncoding.captured(move);
+        int promotion = MoveEncoding.promotion(move);
+
+        if (MoveEncoding.isEnPassant(move)) {
+            removePiece(enPassantVictim(to, piece));
+        } else if (captured != EMPTY) {
+            removePiece(to);
+        }
+        removePiece(from);
+        addPiece(to, promotion != EMPTY ? promotion : piece);
+        if (MoveEncoding.isCastling(move)) {
+            int rank = rankOf(to);
+            boolean isKingside = fileOf(to) == 6;
+            movePiece(square(isKingside ? 7 : 0, rank), square(isKingside ? 5 : 3, rank));
+        }
+
+        updateCastlingRights(from, to);
+        setEnPassantSquare(MoveEncoding.isDoublePush(move) ? (from + to) / 2 : NO_SQUARE);
+        halfmoveClock = pieceType(piece) == PieceType.PAWN || captured != EMPTY ? 0 : halfmoveClock + 1;
+        setWhiteToMove(!isWhiteToMove);
+    }
+
+    /**
+     * Passes the turn without moving, for null move pruning. Only legal to
+     * search when the side to move is not in check.
+     */
+    public void makeNullMove() {
+        pushUndo(MoveEncoding.NO_MOVE);
+        setEnPassantSquare(NO_SQUARE);
+        halfmoveClock++;
+        setWhiteToMove(!isWhiteToMove);
+    }
+
+    /**
+     * Takes back the last move played with {@link #makeMove(int)} or
+     * {@link #makeNullMove()}.
+     */
+    public void unmakeMove() {
+        undoCount--;
+        int move = undoMoves[undoCount];
+        int state = undoStates[undoCount];
+
+        if (move != MoveEncoding.NO_MOVE) {
+            int from = MoveEncoding.from(move);
+            int to = MoveEncoding.to(move);
+            int piece = MoveEncoding.piece(move);
+            int captured = MoveEncoding.captured(move);
+
+            if (MoveEncoding.isCastling(move)) {
+                int rank = rankOf(to);
+                boolean isKingside = fileOf(to) == 6;
+                movePiece(square(isKingside ? 5 : 3, rank), square(isKingside ? 7 : 0, rank));
+            }
+            removePiece(to);
+            addPiece(from, piece);
+            if (MoveEncoding.isEnPassant(move)) {
+                addPiece(enPassantVictim(to, piece), captured);
+            } else if (captured != EMPTY) {
+                addPiece(to, captured);
+            }
+        }
+
+        // The piece moves above also touched the hash; the saved one replaces it.
+        isWhiteToMove = !isWhiteToMove;
+        castlingRights = state & ALL_CASTLING;
+        enPassantSquare = ((state >>> UNDO_EN_PASSANT_SHIFT) & 127) - 1;
+        halfmoveClock = state >>> UNDO_HALFMOVE_SHIFT;
+        hash = undoHashes[undoCount];
+    }
+
+    /**
+     * Saves what a move cannot be undone from: the move itself, the castling
+     * rights, en passant square, halfmove clock and hash.
+     */
+    private void pushUndo(int move) {
+        if (undoCount == undoMoves.length) {
+            undoMoves = Arrays.copyOf(undoMoves, undoCount * 2);
+            undoStates = Arrays.copyOf(undoStates, undoCount * 2);
+            undoHashes = Arrays.copyOf(undoHashes, undoCount * 2);
+        }
+        undoMoves[undoCount] = move;
+        undoStates[undoCount] = castlingRights
+                | ((enPassantSquare + 1) << UNDO_EN_PASSANT_SHIFT)
+                | (halfmoveClock << UNDO_HALFMOVE_SHIFT);
+        undoHashes[undoCount] = hash;
+        undoCount++;
+    }
+
+    /**
+     * @return the square of the pawn taken by an en passant capture landing
+     *         on a square.
+     */
+    private static int enPassantVictim(int to, int pawn) {
+        return isWhite(pawn) ? to + 8 : to - 8;
+    }
+
+    /**
+     * Places a piece on an empty square.
+     */
+    public void addPiece(int square, int piece) {
+        long mask = bit(square);
+        pieceSets[piece] |= mask;
+        occupancy[colourOf(piece)] |= mask;
+        occupied |= mask;
+        board[square] = piece;
+        hash ^= Zobrist.piece(piece, square);
+        pawnHash ^= Zobrist.pawn(piece, square);
+        materialKey += MaterialKey.keyUnit(piece);
+        materialIndex += MaterialKey.indexUnit(piece);
+        midgameScore += PieceSquareTables.midgame(piece, square);
+        endgameScore += PieceSquareTables.endgame(piece, square);
+        phase += PieceSquareTables.phase(piece);
+    }
+
+    /**
+     * Removes whatever stands on a square.
+     *
+     * @return the removed piece code, or EMPTY.
+     */
+    public int removePiece(int square) {
+        int piece = board[square];
+        if (piece == EMPTY) {
+            return EMPTY;
+        }
+        long mask = ~bit(square);
+        pieceSets[piece] &= mask;
+        occupancy[colourOf(piece)] &= mask;
+        occupied &= mask;
+        board[square] = EMPTY;
+        hash ^= Zobrist.piece(piece, square);
+        pawnHash ^= Zobrist.pawn(piece, square);
+        materialKey -= MaterialKey.keyUnit(piece);
+        materialIndex -= MaterialKey.indexUnit(piece);
+        midgameScore -= PieceSquareTables.midgame(piece, square);
+        endgameScore -= PieceSquareTables.endgame(piece, square);
+        phase -= PieceSquareTables.phase(piece);
+        return piece;
+    }
+
+    /**
+     * Moves a piece to a square, removing anything that stood there.
+     *
+     * @return the captured piece code, or EMPTY.
+     */
+    public int movePiece(int from, int to) {
+        int captured = removePiece(to);
+        int piece = removePiece(from);
+        addPiece(to, piece);
+        return captured;
+    }
+
+    /**
+     * Drops the castling rights lost by a move between two squares (king or
+     * rook leaving home, or a rook being captured on its corner).
+     */
+    public void updateCastlingRights(int from, int to) {
+        setCastlingRights(castlingRights & CASTLING_MASK[from] & CASTLING_MASK[to]);
+    }
+
+    public int getPieceAt(int square) {
+        return board[square];
+    }
+
+    public long getPieceSet(int piece) {
+        return pieceSets[piece];
+    }
+
+    public long getOccupancy(boolean isWhite) {
+        return occupancy[isWhite ? WHITE : BLACK];
+    }
+
+    public long getOccupied() {
+        return occupied;
+    }
+
+    /**
+     * @return the king's square, or NO_SQUARE if that side has no king.
+     */
+    public int getKingSquare(boolean isWhite) {
+        long king = pieceSets[isWhite ? WHITE_KING : BLACK_KING];
+        return king == 0 ? NO_SQUARE : Long.numberOfTrailingZeros(king);
+    }
+
+    public boolean isWhiteToMove() {
+        return isWhiteToMove;
+    }
+
+    public void setWhiteToMove(boolean isWhiteToMove) {
+        if (this.isWhiteToMove != isWhiteToMove) {
+            hash ^= Zobrist.blackToMove();
+        }
+        this.isWhiteToMove = isWhiteToMove;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public boolean hasCastlingRight(int right) {
+        return (castlingRights & right) != 0;
+    }
+
+    public void setCastlingRights(int castlingRights) {
+        hash ^= Zobrist.castling(this.castlingRights) ^ Zobrist.castling(castlingRights);
+        this.castlingRights = castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public void setEnPassantSquare(int enPassantSquare) {
+        hash ^= Zobrist.enPassant(this.enPassantSquare) ^ Zobrist.enPassant(enPassantSquare);
+        this.enPassantSquare = enPassantSquare;
+    }
+
+    /**
+     * @return plies since the last capture or pawn move, for the fifty-move
+     *         rule.
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public void setHalfmoveClock(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    /**
+     * @return the Zobrist hash of the position.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * @return the Zobrist key of the pawns alone.
+     */
+    public long getPawnHash() {
+        return pawnHash;
+    }
+
+    /**
+     * @return the piece counts, packed as described in MaterialKey.
+     */
+    public long getMaterialKey() {
+        return materialKey;
+    }
+
+    /**
+     * @return the material signature's table index; only meaningful while
+     *         MaterialKey.isIndexed(getMaterialKey()).
+     */
+    public int getMaterialIndex() {
+        return materialIndex;
+    }
+
+    /**
+     * @return the middlegame material and piece-square score, White minus
+     *         Black.
+     */
+    public int getMidgameScore() {
+        return midgameScore;
+    }
+
+    /**
+     * @return the endgame material and piece-square score, White minus Black.
+     */
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    /**
+     * @return the game phase, from 0 with only kings and pawns left up to
+     *         PieceSquareTables.MAX_PHASE (more after promotions).
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * @return the material and piece-square score blended by game phase,
+     *         White minus Black.
+     */
+    public int getTaperedScore() {
+        return PieceSquareTables.taper(midgameScore, endgameScore, phase);
+    }
+}
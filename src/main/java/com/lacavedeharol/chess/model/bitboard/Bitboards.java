@@ -0,0 +1,84 @@
+package com.lacavedeharol.chess.model.bitboard;
+
+import com.lacavedeharol.chess.model.PieceType;
+
+/**
+ * Constants and helpers shared by the bitboard engine core.
+ *
+ * Squares are numbered rank * 8 + file using the same coordinates as the rest
+ * of the model: file 0 is the a-file and rank 0 is the top of the board
+ * (black's back rank), so square 0 is a8 and square 63 is h1.
+ */
+public final class Bitboards {
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int EMPTY = -1;
+    public static final int NO_SQUARE = -1;
+
+    // Piece codes: colour * 6 + PieceType ordinal.
+    public static final int WHITE_PAWN = 0;
+    public static final int WHITE_BISHOP = 1;
+    public static final int WHITE_KNIGHT = 2;
+    public static final int WHITE_ROOK = 3;
+    public static final int WHITE_QUEEN = 4;
+    public static final int WHITE_KING = 5;
+    public static final int BLACK_PAWN = 6;
+    public static final int BLACK_BISHOP = 7;
+    public static final int BLACK_KNIGHT = 8;
+    public static final int BLACK_ROOK = 9;
+    public static final int BLACK_QUEEN = 10;
+    public static final int BLACK_KING = 11;
+
+    // Castling rights bit flags.
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    private Bitboards() {
+    }
+
+    public static int square(int file, int rank) {
+        return rank * 8 + file;
+    }
+
+    public static int fileOf(int square) {
+        return square & 7;
+    }
+
+    public static int rankOf(int square) {
+        return square >>> 3;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    public static int pieceCode(boolean isWhite, PieceType pieceType) {
+        return (isWhite ? WHITE : BLACK) * 6 + pieceType.ordinal();
+    }
+
+    public static PieceType pieceType(int pieceCode) {
+        return PIECE_TYPES[pieceCode % 6];
+    }
+
+    public static int typeIndex(int pieceCode) {
+        return pieceCode % 6;
+    }
+
+    public static boolean isWhite(int pieceCode) {
+        return pieceCode < 6;
+    }
+
+    public static int colourOf(int pieceCode) {
+        return pieceCode < 6 ? WHITE : BLACK;
+    }
+}
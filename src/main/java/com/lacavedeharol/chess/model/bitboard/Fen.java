@@ -0,0 +1,127 @@
+package com.lacavedeharol.chess.model.bitboard;
+
+import com.lacavedeharol.chess.model.PieceType;
+
+/**
+ * Reads positions written in Forsyth-Edwards Notation.
+ */
+public final class Fen {
+
+    public static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PIECE_LETTERS = "pbnrqk";
+
+    private Fen() {
+    }
+
+    /**
+     * Parses a FEN string. The move counters are optional.
+     *
+     * @param fen
+     * @return the position described by the string.
+     * @throws IllegalArgumentException if the string is not valid FEN.
+     */
+    public static BitboardPosition parse(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Incomplete FEN: " + fen);
+        }
+        BitboardPosition position = new BitboardPosition();
+
+        // FEN lists the ranks from the top of the board, which is rank 0 here.
+        String[] rows = fields[0].split("/");
+        if (rows.length != 8) {
+            throw new IllegalArgumentException("FEN must describe 8 ranks: " + fen);
+        }
+        for (int rank = 0; rank < 8; rank++) {
+            int file = 0;
+            for (char c : rows[rank].toCharArray()) {
+                if (c >= '1' && c <= '8') {
+                    file += c - '0';
+                    if (file > 8) {
+                        throw new IllegalArgumentException("Bad piece placement in FEN: " + fen);
+                    }
+                    continue;
+                }
+                int type = PIECE_LETTERS.indexOf(Character.toLowerCase(c));
+                if (type < 0 || file > 7) {
+                    throw new IllegalArgumentException("Bad piece placement in FEN: " + fen);
+                }
+                PieceType pieceType = switch (type) {
+                    case 0 -> PieceType.PAWN;
+                    case 1 -> PieceType.BISHOP;
+                    case 2 -> PieceType.KNIGHT;
+                    case 3 -> PieceType.ROOK;
+                    case 4 -> PieceType.QUEEN;
+                    default -> PieceType.KING;
+                };
+                position.addPiece(Bitboards.square(file, rank),
+                        Bitboards.pieceCode(Character.isUpperCase(c), pieceType));
+                file++;
+            }
+            if (file != 8) {
+                throw new IllegalArgumentException("FEN rank " + (8 - rank) + " must describe 8 squares: " + fen);
+            }
+        }
+
+        if (!fields[1].equals("w") && !fields[1].equals("b")) {
+            throw new IllegalArgumentException("Bad side to move in FEN: " + fen);
+        }
+        position.setWhiteToMove(fields[1].equals("w"));
+
+        // "-" for none, otherwise each of KQkq at most once.
+        int castlingRights = 0;
+        if (!fields[2].equals("-")) {
+            for (char c : fields[2].toCharArray()) {
+                int right = switch (c) {
+                    case 'K' -> Bitboards.WHITE_KINGSIDE;
+                    case 'Q' -> Bitboards.WHITE_QUEENSIDE;
+                    case 'k' -> Bitboards.BLACK_KINGSIDE;
+                    case 'q' -> Bitboards.BLACK_QUEENSIDE;
+                    default -> 0;
+                };
+                if (right == 0 || (castlingRights & right) != 0) {
+                    throw new IllegalArgumentException("Bad castling rights in FEN: " + fen);
+                }
+                castlingRights |= right;
+            }
+        }
+        position.setCastlingRights(castlingRights);
+
+        if (!fields[3].equals("-")) {
+            position.setEnPassantSquare(parseSquare(fields[3]));
+        }
+        if (fields.length > 4) {
+            try {
+                position.setHalfmoveClock(Integer.parseInt(fields[4]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad halfmove clock in FEN: " + fen, e);
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Converts algebraic notation such as "e4" into a square index.
+     *
+     * @throws IllegalArgumentException if the name is not a square.
+     */
+    public static int parseSquare(String name) {
+        if (name.length() != 2) {
+            throw new IllegalArgumentException("Bad square: " + name);
+        }
+        int file = name.charAt(0) - 'a';
+        int rank = 8 - (name.charAt(1) - '0');
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            throw new IllegalArgumentException("Bad square: " + name);
+        }
+        return Bitboards.square(file, rank);
+    }
+
+    /**
+     * Converts a square index into algebraic notation such as "e4".
+     */
+    public static String squareName(int square) {
+        return "" + (char) ('a' + Bitboards.fileOf(square)) + (8 - Bitboards.rankOf(square));
+    }
+}
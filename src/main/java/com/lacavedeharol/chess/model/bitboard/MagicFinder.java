@@ -0,0 +1,99 @@
+package com.lacavedeharol.chess.model.bitboard;
+
+/**
+ * Searches for the magic multipliers {@link AttackTables} is built from.
+ * The search takes about half a second, too long to run on every start, so
+ * its results are kept as constants in AttackTables; run this to regenerate
+ * them, e.g. after changing the seed:
+ *
+ * <pre>
+ * java -cp target/classes com.lacavedeharol.chess.model.bitboard.MagicFinder
+ * </pre>
+ */
+public final class MagicFinder {
+
+    // Fixed seed so the magics found are the same on every run.
+    private long seed = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Finds a magic for a square: a multiplier that maps every blocker
+     * subset of the square's relevant mask to a table slot, where subsets
+     * sharing a slot have the same attack set.
+     *
+     * @param square
+     * @param isRook true for rook rays, false for bishop rays.
+     * @return the magic.
+     */
+    public long find(int square, boolean isRook) {
+        long mask = AttackTables.relevantMask(square, isRook);
+        int bits = Long.bitCount(mask);
+        int size = 1 << bits;
+
+        // Enumerate every blocker subset of the mask (Carry-Rippler).
+        long[] occupancies = new long[size];
+        long[] attacks = new long[size];
+        long subset = 0;
+        for (int i = 0; i < size; i++) {
+            occupancies[i] = subset;
+            attacks[i] = AttackTables.slidingAttacks(square, subset, isRook);
+            subset = (subset - mask) & mask;
+        }
+
+        long[] table = new long[size];
+        int[] epoch = new int[size];
+        int attempt = 0;
+        while (true) {
+            long magic = nextRandom() & nextRandom() & nextRandom();
+            if (Long.bitCount((mask * magic) >>> 56) < 6) {
+                continue;
+            }
+            attempt++;
+            boolean collision = false;
+            for (int i = 0; i < size && !collision; i++) {
+                int index = (int) ((occupancies[i] * magic) >>> (64 - bits));
+                if (epoch[index] != attempt) {
+                    epoch[index] = attempt;
+                    table[index] = attacks[i];
+                } else if (table[index] != attacks[i]) {
+                    collision = true;
+                }
+            }
+            if (!collision) {
+                return magic;
+            }
+        }
+    }
+
+    private long nextRandom() {
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        return seed * 0x2545F4914F6CDD1DL;
+    }
+
+    /**
+     * Prints the rook and bishop magics as Java array initializers.
+     */
+    public static void main(String[] args) {
+        MagicFinder finder = new MagicFinder();
+        long[] rookMagics = new long[64];
+        long[] bishopMagics = new long[64];
+        // Same order as the search used to run in: rook then bishop, square by square.
+        for (int square = 0; square < 64; square++) {
+            rookMagics[square] = finder.find(square, true);
+            bishopMagics[square] = finder.find(square, false);
+        }
+        print("ROOK_MAGICS", rookMagics);
+        print("BISHOP_MAGICS", bishopMagics);
+    }
+
+    private static void print(String name, long[] magics) {
+        StringBuilder builder = new StringBuilder("    private static final long[] " + name + " = {");
+        for (int square = 0; square < 64; square++) {
+            builder.append(square % 4 == 0 ? "\n            " : " ");
+            builder.append(String.format("0x%016XL", magics[square]));
+            builder.append(square < 63 ? "," : "");
+        }
+        System.out.println(builder.append(" };"));
+    }
+}
@@ -0,0 +1,113 @@
+package com.lacavedeharol.chess.model.bitboard;
+
+/**
+ * Material signatures: how many pieces of each type and colour a position
+ * has, kings aside. {@link BitboardPosition} keeps two forms of it up to date
+ * as pieces come and go:
+ * <ul>
+ * <li>the key, four bits of count per piece code, exact whatever the
+ * promotions;</li>
+ * <li>the index, a mixed-radix number that numbers every signature with up
+ * to 8 pawns, 2 knights, 2 bishops, 2 rooks and 1 queen a side, to look the
+ * signature up in a table of {@link #INDEX_SIZE} entries.</li>
+ * </ul>
+ * Promotions can take a signature past those counts; the index is then
+ * meaningless and {@link #isIndexed(long)} says so.
+ */
+public final class MaterialKey {
+
+    private static final int BITS_PER_COUNT = 4;
+
+    // Highest count the index covers, by piece type: PAWN, BISHOP, KNIGHT, ROOK, QUEEN, KING.
+    private static final int[] MAX_INDEXED = { 8, 2, 2, 2, 1, 0 };
+
+    private static final long[] KEY_UNIT = new long[12];
+    private static final int[] INDEX_UNIT = new int[12];
+
+    /**
+     * The number of signatures the index covers.
+     */
+    public static final int INDEX_SIZE;
+
+    // Added to the key, sets the top bit of every count above MAX_INDEXED.
+    // Pawns are left out; there are never more than 8.
+    private static final long OVERFLOW_ADD;
+    private static final long OVERFLOW_BITS;
+
+    static {
+        int size = 1;
+        long overflowAdd = 0;
+        long overflowBits = 0;
+        for (int piece = 0; piece < 12; piece++) {
+            int type = Bitboards.typeIndex(piece);
+            if (type == Bitboards.typeIndex(Bitboards.WHITE_KING)) {
+                continue;
+            }
+            int shift = piece * BITS_PER_COUNT;
+            KEY_UNIT[piece] = 1L << shift;
+            INDEX_UNIT[piece] = size;
+            size *= MAX_INDEXED[type] + 1;
+            if (type != Bitboards.typeIndex(Bitboards.WHITE_PAWN)) {
+                overflowAdd |= (long) (7 - MAX_INDEXED[type]) << shift;
+                overflowBits |= 8L << shift;
+            }
+        }
+        INDEX_SIZE = size;
+        OVERFLOW_ADD = overflowAdd;
+        OVERFLOW_BITS = overflowBits;
+    }
+
+    private MaterialKey() {
+    }
+
+    /**
+     * @return what adding a piece adds to the key; 0 for kings.
+     */
+    public static long keyUnit(int piece) {
+        return KEY_UNIT[piece];
+    }
+
+    /**
+     * @return what adding a piece adds to the index; 0 for kings.
+     */
+    public static int indexUnit(int piece) {
+        return INDEX_UNIT[piece];
+    }
+
+    /**
+     * @return how many of a piece a signature has.
+     */
+    public static int count(long key, int piece) {
+        return (int) (key >>> (piece * BITS_PER_COUNT)) & ((1 << BITS_PER_COUNT) - 1);
+    }
+
+    /**
+     * @return whether a signature's counts are all within the index's range.
+     */
+    public static boolean isIndexed(long key) {
+        return ((key + OVERFLOW_ADD) & OVERFLOW_BITS) == 0;
+    }
+
+    /**
+     * @return the index of a signature; only meaningful if it is indexed.
+     */
+    public static int index(long key) {
+        int index = 0;
+        for (int piece = 0; piece < 12; piece++) {
+            index += count(key, piece) * INDEX_UNIT[piece];
+        }
+        return index;
+    }
+
+    /**
+     * Computes a position's key from scratch. The incrementally maintained key
+     * must always equal this.
+     */
+    public static long compute(BitboardPosition position) {
+        long key = 0;
+        for (int piece = 0; piece < 12; piece++) {
+            key += Long.bitCount(position.getPieceSet(piece)) * KEY_UNIT[piece];
+        }
+        return key;
+    }
+}
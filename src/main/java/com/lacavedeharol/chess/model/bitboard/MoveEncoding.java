@@ -0,0 +1,123 @@
+package com.lacavedeharol.chess.model.bitboard;
+
+import static com.lacavedeharol.chess.model.bitboard.Bitboards.*;
+
+/**
+ * Moves packed into a single int so the search can keep them in primitive
+ * arrays:
+ *
+ * <pre>
+ * bits  0-5   from square
+ * bits  6-11  to square
+ * bits 12-15  moving piece code
+ * bits 16-19  captured piece code + 1 (0 = no capture)
+ * bits 20-23  promotion piece code + 1 (0 = no promotion)
+ * bits 24-26  flags: en passant, castling, pawn double step
+ * </pre>
+ *
+ * 0 is never a valid move (from and to would be the same square), so it
+ * serves as "no move".
+ */
+public final class MoveEncoding {
+
+    public static final int NO_MOVE = 0;
+
+    public static final int FLAG_EN_PASSANT = 1;
+    public static final int FLAG_CASTLING = 2;
+    public static final int FLAG_DOUBLE_PUSH = 4;
+
+    private static final int TO_SHIFT = 6;
+    private static final int PIECE_SHIFT = 12;
+    private static final int CAPTURED_SHIFT = 16;
+    private static final int PROMOTION_SHIFT = 20;
+    private static final int FLAGS_SHIFT = 24;
+
+    private static final String PROMOTION_LETTERS = "pbnrqk";
+
+    private MoveEncoding() {
+    }
+
+    /**
+     * @param from
+     * @param to
+     * @param piece     the moving piece code.
+     * @param captured  the captured piece code, or EMPTY.
+     * @param promotion the piece code promoted to, or EMPTY.
+     * @param flags     any of the FLAG_ constants.
+     */
+    public static int encode(int from, int to, int piece, int captured, int promotion, int flags) {
+        return from
+                | (to << TO_SHIFT)
+                | (piece << PIECE_SHIFT)
+                | ((captured + 1) << CAPTURED_SHIFT)
+                | ((promotion + 1) << PROMOTION_SHIFT)
+                | (flags << FLAGS_SHIFT);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> TO_SHIFT) & 63;
+    }
+
+    public static int piece(int move) {
+        return (move >>> PIECE_SHIFT) & 15;
+    }
+
+    /**
+     * @return the captured piece code, or EMPTY.
+     */
+    public static int captured(int move) {
+        return ((move >>> CAPTURED_SHIFT) & 15) - 1;
+    }
+
+    /**
+     * @return the piece code promoted to, or EMPTY.
+     */
+    public static int promotion(int move) {
+        return ((move >>> PROMOTION_SHIFT) & 15) - 1;
+    }
+
+    public static int flags(int move) {
+        return move >>> FLAGS_SHIFT;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & (15 << CAPTURED_SHIFT)) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move & (15 << PROMOTION_SHIFT)) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (flags(move) & FLAG_EN_PASSANT) != 0;
+    }
+
+    public static boolean isCastling(int move) {
+        return (flags(move) & FLAG_CASTLING) != 0;
+    }
+
+    public static boolean isDoublePush(int move) {
+        return (flags(move) & FLAG_DOUBLE_PUSH) != 0;
+    }
+
+    /**
+     * @return just the from and to squares, as stored in the transposition
+     *         table and compared for killer moves.
+     */
+    public static int fromTo(int move) {
+        return move & 0xFFF;
+    }
+
+    /**
+     * @return the move in coordinate notation, e.g. "e2e4" or "e7e8q".
+     */
+    public static String toString(int move) {
+        String name = Fen.squareName(from(move)) + Fen.squareName(to(move));
+        int promotion = promotion(move);
+        return promotion == EMPTY ? name : name + PROMOTION_LETTERS.charAt(typeIndex(promotion));
+    }
+}
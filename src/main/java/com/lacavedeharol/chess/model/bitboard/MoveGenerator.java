@@ -0,0 +1,469 @@
+package com.lacavedeharol.chess.model.bitboard;
+
+import static com.lacavedeharol.chess.model.bitboard.Bitboards.*;
+
+/**
+ * Generates moves straight from the bitboards into a caller-supplied int
+ * array (see {@link MoveEncoding}), so move generation allocates nothing.
+ * Callers typically keep one array per ply of a search.
+ *
+ * Legal moves are generated directly rather than by playing and testing
+ * every move. The checkers and pinned pieces are found once per position:
+ * <ul>
+ * <li>in double check only the king may move;</li>
+ * <li>in single check other pieces may only capture the checker or block its
+ * line;</li>
+ * <li>a pinned piece may only move along the line through its king;</li>
+ * <li>the king may not step onto an attacked square, judged with the king
+ * itself removed so it cannot hide behind its own shadow from a slider.</li>
+ * </ul>
+ * En passant, the one move that removes a piece from a square it does not
+ * land on, can expose the king along a rank; it alone is tested by playing
+ * it out.
+ */
+public final class MoveGenerator {
+
+    /** More than the most moves possible in any chess position (218). */
+    public static final int MAX_MOVES = 256;
+
+    private static final int[] PROMOTION_TYPES = { 4, 3, 1, 2 }; // Queen first, then rook, bishop, knight.
+
+    // Which moves to generate. CAPTURES and QUIETS together make up ALL.
+    private static final int ALL = 0;
+    private static final int CAPTURES = 1; // Captures, en passant and queen promotions.
+    private static final int QUIETS = 2; // Everything else, underpromotions included.
+
+    private static final long PROMOTION_RANKS = 0xFFL | (0xFFL << 56);
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Appends a side's pseudo-legal moves: moves that may leave the mover's
+     * own king in check.
+     *
+     * @param position
+     * @param isWhite  the side to generate moves for.
+     * @param moves    the array to write into.
+     * @param count    the index to start writing at.
+     * @return the index after the last move written.
+     */
+    public static int generatePseudoLegal(BitboardPosition position, boolean isWhite, int[] moves, int count) {
+        return generate(position, isWhite, false, ALL, moves, count);
+    }
+
+    /**
+     * Appends a side's legal moves.
+     *
+     * @see #generatePseudoLegal(BitboardPosition, boolean, int[], int)
+     */
+    public static int generateLegal(BitboardPosition position, boolean isWhite, int[] moves, int count) {
+        return generate(position, isWhite, true, ALL, moves, count);
+    }
+
+    /**
+     * Appends a side's legal captures, en passant captures and queen
+     * promotions: the moves a quiescence search looks at.
+     *
+     * @see #generatePseudoLegal(BitboardPosition, boolean, int[], int)
+     */
+    public static int generateLegalCaptures(BitboardPosition position, boolean isWhite, int[] moves, int count) {
+        return generate(position, isWhite, true, CAPTURES, moves, count);
+    }
+
+    /**
+     * Appends the legal moves {@link #generateLegalCaptures} leaves out: quiet
+     * moves, castling and underpromotions.
+     *
+     * @see #generatePseudoLegal(BitboardPosition, boolean, int[], int)
+     */
+    public static int generateLegalQuiets(BitboardPosition position, boolean isWhite, int[] moves, int count) {
+        return generate(position, isWhite, true, QUIETS, moves, count);
+    }
+
+    /**
+     * Rebuilds a full move from the from-to squares a transposition table or
+     * killer slot keeps, checking it is legal for the side to move here
+     * without generating the other moves. Promotions come back as queen
+     * promotions.
+     *
+     * @param position
+     * @param fromTo   see {@link MoveEncoding#fromTo(int)}.
+     * @return the legal move, or NO_MOVE.
+     */
+    public static int legalMove(BitboardPosition position, int fromTo) {
+        int from = fromTo & 63;
+        int to = (fromTo >>> 6) & 63;
+        int piece = position.getPieceAt(from);
+        boolean isWhite = position.isWhiteToMove();
+        if (from == to || piece == EMPTY || Bitboards.isWhite(piece) != isWhite
+                || (position.getOccupancy(isWhite) & bit(to)) != 0) {
+            return MoveEncoding.NO_MOVE;
+        }
+        long occupied = position.getOccupied();
+        int captured = position.getPieceAt(to);
+        int move;
+        int type = typeIndex(piece);
+        if (type == 0) {
+            int forward = isWhite ? -8 : 8;
+            int flags = 0;
+            if (captured != EMPTY) {
+                if ((AttackTables.pawnAttacks(isWhite, from) & bit(to)) == 0) {
+                    return MoveEncoding.NO_MOVE;
+                }
+            } else if (to == from + forward) {
+                // A single push onto an empty square.
+            } else if (to == from + 2 * forward && rankOf(from) == (isWhite ? 6 : 1)
+                    && (occupied & bit(from + forward)) == 0) {
+                flags = MoveEncoding.FLAG_DOUBLE_PUSH;
+            } else if (to == position.getEnPassantSquare() && (AttackTables.pawnAttacks(isWhite, from) & bit(to)) != 0
+                    && position.getPieceAt(to - forward) == piece + (isWhite ? 6 : -6)) {
+                flags = MoveEncoding.FLAG_EN_PASSANT;
+                captured = position.getPieceAt(to - forward);
+            } else {
+                return MoveEncoding.NO_MOVE;
+            }
+            int promotion = (bit(to) & PROMOTION_RANKS) != 0 ? piece + PROMOTION_TYPES[0] : EMPTY;
+            move = MoveEncoding.encode(from, to, piece, captured, promotion, flags);
+        } else if (type == 5 && Math.abs(to - from) == 2) {
+            int castling = castling(position, isWhite, to > from);
+            return castling != MoveEncoding.NO_MOVE && MoveEncoding.from(castling) == from
+                    ? castling
+                    : MoveEncoding.NO_MOVE;
+        } else if ((AttackTables.attacks(piece, from, occupied) & bit(to)) != 0) {
+            move = MoveEncoding.encode(from, to, piece, captured, EMPTY, 0);
+        } else {
+            return MoveEncoding.NO_MOVE;
+        }
+        return isLegal(position, move) ? move : MoveEncoding.NO_MOVE;
+    }
+
+    /**
+     * Tests whether a pseudo-legal move leaves the mover's king safe by
+     * playing it on the bitboards and taking it back. Castling moves are only
+     * generated when the king's path is safe, so the king's destination is all
+     * that is left to test for them.
+     *
+     * @param position left unchanged.
+     * @param move
+     * @return
+     */
+    public static boolean isLegal(BitboardPosition position, int move) {
+        int from = MoveEncoding.from(move);
+        int to = MoveEncoding.to(move);
+        int piece = MoveEncoding.piece(move);
+        boolean isWhite = Bitboards.isWhite(piece);
+        int capturedSquare = MoveEncoding.isEnPassant(move) ? (isWhite ? to + 8 : to - 8) : to;
+
+        int captured = position.removePiece(capturedSquare);
+        position.movePiece(from, to);
+        int kingSquare = position.getKingSquare(isWhite);
+        boolean isLegal = kingSquare == NO_SQUARE || !isSquareAttacked(position, kingSquare, !isWhite);
+        position.movePiece(to, from);
+        if (captured != EMPTY) {
+            position.addPiece(capturedSquare, captured);
+        }
+        return isLegal;
+    }
+
+    /**
+     * @param position
+     * @param isWhite
+     * @return true if that side's king is attacked.
+     */
+    public static boolean isInCheck(BitboardPosition position, boolean isWhite) {
+        int kingSquare = position.getKingSquare(isWhite);
+        return kingSquare != NO_SQUARE && isSquareAttacked(position, kingSquare, !isWhite);
+    }
+
+    /**
+     * Tests whether a legal move checks the opponent, before it is played.
+     * The check is either direct, from the moved piece (or the rook, when
+     * castling) on its new square, or discovered, from a slider of the mover
+     * whose line to the enemy king the move opens.
+     *
+     * @param position left unchanged.
+     * @param move
+     * @return
+     */
+    public static boolean givesCheck(BitboardPosition position, int move) {
+        int piece = MoveEncoding.piece(move);
+        boolean isWhite = Bitboards.isWhite(piece);
+        int king = position.getKingSquare(!isWhite);
+        if (king == NO_SQUARE) {
+            return false;
+        }
+        int from = MoveEncoding.from(move);
+        int to = MoveEncoding.to(move);
+        long moved = bit(from);
+        long occupied = (position.getOccupied() & ~moved) | bit(to);
+        if (MoveEncoding.isEnPassant(move)) {
+            occupied &= ~bit(isWhite ? to + 8 : to - 8);
+        }
+
+        long direct;
+        if (MoveEncoding.isCastling(move)) {
+            int rank = rankOf(from);
+            int rookFrom = square(to > from ? 7 : 0, rank);
+            int rookTo = square(to > from ? 5 : 3, rank);
+            moved |= bit(rookFrom);
+            occupied = (occupied & ~bit(rookFrom)) | bit(rookTo);
+            direct = AttackTables.rookAttacks(rookTo, occupied);
+        } else {
+            int landed = MoveEncoding.isPromotion(move) ? MoveEncoding.promotion(move) : piece;
+            direct = AttackTables.attacks(landed, to, occupied);
+        }
+        if ((direct & bit(king)) != 0) {
+            return true;
+        }
+        // Only sliders can be uncovered; the pieces that moved are judged above.
+        return (attackersTo(position, king, isWhite, occupied) & ~moved) != 0;
+    }
+
+    /**
+     * Looks outwards from a square for pieces that attack it.
+     *
+     * @param position
+     * @param square
+     * @param byWhite  the attacking side.
+     * @return
+     * @see #attackersTo(BitboardPosition, int, boolean, long)
+     */
+    public static boolean isSquareAttacked(BitboardPosition position, int square, boolean byWhite) {
+        return attackersTo(position, square, byWhite, position.getOccupied()) != 0;
+    }
+
+    /**
+     * Finds one side's pieces attacking a square, looking outwards from the
+     * square. Attacks are symmetric: a knight on X attacks Y exactly when a
+     * knight on Y would attack X, and likewise for the other piece types
+     * (pawns with the colour reversed).
+     *
+     * @param position
+     * @param square
+     * @param byWhite  the attacking side.
+     * @param occupied the blockers for sliding pieces, normally the whole
+     *                 board.
+     * @return the attackers' squares.
+     */
+    public static long attackersTo(BitboardPosition position, int square, boolean byWhite, long occupied) {
+        int base = byWhite ? WHITE_PAWN : BLACK_PAWN;
+        long queens = position.getPieceSet(base + 4);
+        return (AttackTables.pawnAttacks(!byWhite, square) & position.getPieceSet(base))
+                | (AttackTables.knightAttacks(square) & position.getPieceSet(base + 2))
+                | (AttackTables.kingAttacks(square) & position.getPieceSet(base + 5))
+                | (AttackTables.bishopAttacks(square, occupied) & (position.getPieceSet(base + 1) | queens))
+                | (AttackTables.rookAttacks(square, occupied) & (position.getPieceSet(base + 3) | queens));
+    }
+
+    /**
+     * Finds the pieces pinned to a king: the only piece between the king and
+     * an enemy slider on the same line.
+     *
+     * @param position
+     * @param isWhite  the king's side.
+     * @return the pinned pieces' squares.
+     */
+    public static long pinnedPieces(BitboardPosition position, boolean isWhite) {
+        int king = position.getKingSquare(isWhite);
+        if (king == NO_SQUARE) {
+            return 0;
+        }
+        int enemyBase = isWhite ? BLACK_PAWN : WHITE_PAWN;
+        long queens = position.getPieceSet(enemyBase + 4);
+        long snipers = (AttackTables.rookAttacks(king, 0) & (position.getPieceSet(enemyBase + 3) | queens))
+                | (AttackTables.bishopAttacks(king, 0) & (position.getPieceSet(enemyBase + 1) | queens));
+        long occupied = position.getOccupied();
+        long own = position.getOccupancy(isWhite);
+        long pinned = 0;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = AttackTables.between(king, sniper) & occupied;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & own;
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * @param legal        true to apply the check and pin restrictions.
+     * @param kind  ALL, CAPTURES or QUIETS.
+     */
+    private static int generate(BitboardPosition position, boolean isWhite, boolean legal, int kind,
+            int[] moves, int count) {
+        long own = position.getOccupancy(isWhite);
+        long enemy = position.getOccupancy(!isWhite);
+        long occupied = position.getOccupied();
+        long targets = kind == ALL ? ~own : kind == CAPTURES ? enemy : ~occupied;
+        int base = isWhite ? WHITE_PAWN : BLACK_PAWN;
+        int king = position.getKingSquare(isWhite);
+
+        // Everything but the king must land inside checkMask and, if pinned, on its pin line.
+        long checkers = 0;
+        long checkMask = -1L;
+        long pinned = 0;
+        if (legal && king != NO_SQUARE) {
+            checkers = attackersTo(position, king, !isWhite, occupied);
+            pinned = pinnedPieces(position, isWhite);
+            if (checkers != 0) {
+                int checker = Long.numberOfTrailingZeros(checkers);
+                checkMask = Long.bitCount(checkers) > 1 ? 0 : checkers | AttackTables.between(king, checker);
+            }
+        }
+
+        if (checkMask != 0) {
+            count = generatePawnMoves(position, isWhite, legal, kind, king, checkMask, pinned, moves, count);
+
+            long pieces = own & ~position.getPieceSet(base) & ~position.getPieceSet(base + 5);
+            while (pieces != 0) {
+                int from = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                int piece = position.getPieceAt(from);
+                long attacks = AttackTables.attacks(piece, from, occupied) & targets & checkMask;
+                if ((pinned & bit(from)) != 0) {
+                    attacks &= AttackTables.line(king, from);
+                }
+                while (attacks != 0) {
+                    int to = Long.numberOfTrailingZeros(attacks);
+                    attacks &= attacks - 1;
+                    moves[count++] = MoveEncoding.encode(from, to, piece, position.getPieceAt(to), EMPTY, 0);
+                }
+            }
+        }
+
+        long kings = position.getPieceSet(base + 5);
+        while (kings != 0) {
+            int from = Long.numberOfTrailingZeros(kings);
+            kings &= kings - 1;
+            long attacks = AttackTables.kingAttacks(from) & targets;
+            long withoutKing = occupied & ~bit(from);
+            while (attacks != 0) {
+                int to = Long.numberOfTrailingZeros(attacks);
+                attacks &= attacks - 1;
+                if (!legal || attackersTo(position, to, !isWhite, withoutKing) == 0) {
+                    moves[count++] = MoveEncoding.encode(from, to, base + 5, position.getPieceAt(to), EMPTY, 0);
+                }
+            }
+        }
+
+        if (kind != CAPTURES && checkers == 0) {
+            count = generateCastling(position, isWhite, moves, count);
+        }
+        return count;
+    }
+
+    private static int generatePawnMoves(BitboardPosition position, boolean isWhite, boolean legal,
+            int kind, int king, long checkMask, long pinned, int[] moves, int count) {
+        int pawn = isWhite ? WHITE_PAWN : BLACK_PAWN;
+        int enemyPawn = isWhite ? BLACK_PAWN : WHITE_PAWN;
+        int forward = isWhite ? -8 : 8;
+        int homeRank = isWhite ? 6 : 1;
+        int promotionRank = isWhite ? 0 : 7;
+        long enemy = position.getOccupancy(!isWhite);
+        long occupied = position.getOccupied();
+        int enPassantSquare = position.getEnPassantSquare();
+
+        long pawns = position.getPieceSet(pawn);
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long allowed = (pinned & bit(from)) != 0 ? checkMask & AttackTables.line(king, from) : checkMask;
+
+            // Pushes: only queen promotions count as "captures" for the quiescence search.
+            int to = from + forward;
+            if ((occupied & bit(to)) == 0) {
+                if ((allowed & bit(to)) != 0) {
+                    if (rankOf(to) == promotionRank) {
+                        count = addPromotions(from, to, pawn, EMPTY, kind, moves, count);
+                    } else if (kind != CAPTURES) {
+                        moves[count++] = MoveEncoding.encode(from, to, pawn, EMPTY, EMPTY, 0);
+                    }
+                }
+                int doubleStep = to + forward;
+                if (kind != CAPTURES && rankOf(from) == homeRank && (occupied & bit(doubleStep)) == 0
+                        && (allowed & bit(doubleStep)) != 0) {
+                    moves[count++] = MoveEncoding.encode(from, doubleStep, pawn, EMPTY, EMPTY,
+                            MoveEncoding.FLAG_DOUBLE_PUSH);
+                }
+            }
+
+            long attacks = AttackTables.pawnAttacks(isWhite, from);
+            long captures = attacks & enemy & allowed;
+            if (kind == QUIETS) {
+                captures &= PROMOTION_RANKS; // Only the underpromotions.
+            }
+            while (captures != 0) {
+                to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                int captured = position.getPieceAt(to);
+                if (rankOf(to) == promotionRank) {
+                    count = addPromotions(from, to, pawn, captured, kind, moves, count);
+                } else {
+                    moves[count++] = MoveEncoding.encode(from, to, pawn, captured, EMPTY, 0);
+                }
+            }
+
+            // En passant, only if the pawn that just double stepped is really there.
+            if (kind != QUIETS && enPassantSquare != NO_SQUARE && (attacks & bit(enPassantSquare)) != 0
+                    && (occupied & bit(enPassantSquare)) == 0
+                    && position.getPieceAt(enPassantSquare - forward) == enemyPawn) {
+                int move = MoveEncoding.encode(from, enPassantSquare, pawn, enemyPawn, EMPTY,
+                        MoveEncoding.FLAG_EN_PASSANT);
+                if (!legal || isLegal(position, move)) {
+                    moves[count++] = move;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int addPromotions(int from, int to, int pawn, int captured, int kind,
+            int[] moves, int count) {
+        for (int type : PROMOTION_TYPES) {
+            boolean isQueen = type == PROMOTION_TYPES[0];
+            if (kind == ALL || (kind == CAPTURES) == isQueen) {
+                moves[count++] = MoveEncoding.encode(from, to, pawn, captured, pawn + type, 0);
+            }
+        }
+        return count;
+    }
+
+    private static int generateCastling(BitboardPosition position, boolean isWhite, int[] moves, int count) {
+        int kingSide = castling(position, isWhite, true);
+        if (kingSide != MoveEncoding.NO_MOVE) {
+            moves[count++] = kingSide;
+        }
+        int queenSide = castling(position, isWhite, false);
+        if (queenSide != MoveEncoding.NO_MOVE) {
+            moves[count++] = queenSide;
+        }
+        return count;
+    }
+
+    /**
+     * @return the castling move if it is legal, otherwise NO_MOVE.
+     */
+    private static int castling(BitboardPosition position, boolean isWhite, boolean kingSide) {
+        int rank = isWhite ? 7 : 0;
+        int king = isWhite ? WHITE_KING : BLACK_KING;
+        int kingSquare = square(4, rank);
+        int rookSquare = square(kingSide ? 7 : 0, rank);
+        int right = kingSide ? (isWhite ? WHITE_KINGSIDE : BLACK_KINGSIDE)
+                : (isWhite ? WHITE_QUEENSIDE : BLACK_QUEENSIDE);
+        if (!position.hasCastlingRight(right) || position.getPieceAt(kingSquare) != king
+                || position.getPieceAt(rookSquare) != (isWhite ? WHITE_ROOK : BLACK_ROOK)
+                || (position.getOccupied() & AttackTables.between(kingSquare, rookSquare)) != 0) {
+            return MoveEncoding.NO_MOVE;
+        }
+        // The king may not start on, pass through or land on an attacked square.
+        int step = kingSide ? 1 : -1;
+        for (int square = kingSquare; square != kingSquare + 3 * step; square += step) {
+            if (isSquareAttacked(position, square, !isWhite)) {
+                return MoveEncoding.NO_MOVE;
+            }
+        }
+        return MoveEncoding.encode(kingSquare, kingSquare + 2 * step, king, EMPTY, EMPTY, MoveEncoding.FLAG_CASTLING);
+    }
+}
@@ -0,0 +1,172 @@
+package com.lacavedeharol.chess.model.bitboard;
+
+/**
+ * Material plus piece-square values for every (piece, square), one set for
+ * the middlegame and one for the endgame, and the game phase each piece
+ * stands for. A position's scores are the sums over its pieces, so
+ * {@link BitboardPosition} keeps them as running totals updated whenever a
+ * piece is added or removed, the same way as the Zobrist hash.
+ *
+ * The evaluation blends the two scores by phase: the full middlegame score
+ * while every minor and major piece is on the board, sliding to the endgame
+ * score as they come off.
+ */
+public final class PieceSquareTables {
+
+    /**
+     * The phase of the starting position: 4 minors at 1, 4 rooks at 2 and 2
+     * queens at 4.
+     */
+    public static final int MAX_PHASE = 24;
+
+    // Indexed by piece type: PAWN, BISHOP, KNIGHT, ROOK, QUEEN, KING. Kings are
+    // not counted; both sides always have one.
+    private static final int[] MATERIAL = { 100, 330, 320, 500, 900, 0 };
+    private static final int[] PHASE = { 0, 1, 1, 2, 4, 0 };
+
+    private static final int CENTER_BONUS = 10; // Any piece on d4, e4, d5 or e5
+
+    // Tables are seen from White's side, first row the 8th rank, as squares
+    // are numbered; Black's pieces read them mirrored.
+    private static final int[] PAWN_MIDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    private static final int[] PAWN_ENDGAME = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            80, 80, 80, 80, 80, 80, 80, 80,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            30, 30, 30, 30, 30, 30, 30, 30,
+            20, 20, 20, 20, 20, 20, 20, 20,
+            10, 10, 10, 10, 10, 10, 10, 10,
+            10, 10, 10, 10, 10, 10, 10, 10,
+            0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    private static final int[] KNIGHT = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+    };
+
+    private static final int[] KING_MIDGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20
+    };
+
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    private static final int[] NONE = new int[64];
+
+    // Indexed by piece type, like MATERIAL.
+    private static final int[][] MIDGAME_TABLES = { PAWN_MIDGAME, NONE, KNIGHT, NONE, NONE, KING_MIDGAME };
+    private static final int[][] ENDGAME_TABLES = { PAWN_ENDGAME, NONE, KNIGHT, NONE, NONE, KING_ENDGAME };
+
+    // Signed values per piece code and square: positive for White.
+    private static final int[][] MIDGAME = new int[12][64];
+    private static final int[][] ENDGAME = new int[12][64];
+
+    static {
+        for (int piece = 0; piece < 12; piece++) {
+            int type = Bitboards.typeIndex(piece);
+            boolean isWhite = Bitboards.isWhite(piece);
+            int sign = isWhite ? 1 : -1;
+            for (int square = 0; square < 64; square++) {
+                int tableSquare = isWhite ? square : square ^ 56;
+                int center = isCenter(square) ? CENTER_BONUS : 0;
+                MIDGAME[piece][square] = sign * (MATERIAL[type] + MIDGAME_TABLES[type][tableSquare] + center);
+                ENDGAME[piece][square] = sign * (MATERIAL[type] + ENDGAME_TABLES[type][tableSquare] + center);
+            }
+        }
+    }
+
+    private PieceSquareTables() {
+    }
+
+    /**
+     * @return a piece's middlegame value on a square: positive for White,
+     *         negative for Black.
+     */
+    public static int midgame(int piece, int square) {
+        return MIDGAME[piece][square];
+    }
+
+    /**
+     * @return a piece's endgame value on a square: positive for White,
+     *         negative for Black.
+     */
+    public static int endgame(int piece, int square) {
+        return ENDGAME[piece][square];
+    }
+
+    /**
+     * @return how much a piece counts towards the game phase.
+     */
+    public static int phase(int piece) {
+        return PHASE[Bitboards.typeIndex(piece)];
+    }
+
+    /**
+     * Blends middlegame and endgame scores by phase.
+     *
+     * @param phase may exceed MAX_PHASE after promotions; it is capped.
+     */
+    public static int taper(int midgame, int endgame, int phase) {
+        int midgameWeight = Math.min(phase, MAX_PHASE);
+        return (midgame * midgameWeight + endgame * (MAX_PHASE - midgameWeight)) / MAX_PHASE;
+    }
+
+    /**
+     * Debug check: the incrementally maintained scores and phase of a position
+     * must equal a from-scratch sum over its pieces.
+     */
+    public static boolean isConsistent(BitboardPosition position) {
+        int midgame = 0;
+        int endgame = 0;
+        int phase = 0;
+        long pieces = position.getOccupied();
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            int piece = position.getPieceAt(square);
+            midgame += MIDGAME[piece][square];
+            endgame += ENDGAME[piece][square];
+            phase += phase(piece);
+        }
+        return midgame == position.getMidgameScore() && endgame == position.getEndgameScore()
+                && phase == position.getPhase();
+    }
+
+    private static boolean isCenter(int square) {
+        int file = Bitboards.fileOf(square);
+        int rank = Bitboards.rankOf(square);
+        return (file == 3 || file == 4) && (rank == 3 || rank == 4);
+    }
+}
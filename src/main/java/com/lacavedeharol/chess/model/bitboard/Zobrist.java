@@ -0,0 +1,117 @@
+package com.lacavedeharol.chess.model.bitboard;
+
+/**
+ * Zobrist keys: one random 64-bit number per (piece, square), per castling
+ * rights combination, per en passant file and for black to move. A position's
+ * hash is the XOR of the keys of everything in it, so a move updates the hash
+ * by XORing out what changed and XORing in what replaced it.
+ *
+ * The pawn key is the XOR of the pawns' keys alone, so it only changes when a
+ * pawn moves, is captured or promotes, and identifies the pawn structure.
+ */
+public final class Zobrist {
+
+    private static final long[][] PIECE_SQUARE = new long[12][64];
+    private static final long[][] PAWN_SQUARE = new long[12][64]; // 0 for pieces other than pawns
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT_FILE = new long[8];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        // Fixed seed so hashes are reproducible between runs.
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int piece = 0; piece < 12; piece++) {
+            for (int square = 0; square < 64; square++) {
+                seed = next(seed);
+                PIECE_SQUARE[piece][square] = mix(seed);
+            }
+        }
+        PAWN_SQUARE[Bitboards.WHITE_PAWN] = PIECE_SQUARE[Bitboards.WHITE_PAWN];
+        PAWN_SQUARE[Bitboards.BLACK_PAWN] = PIECE_SQUARE[Bitboards.BLACK_PAWN];
+        for (int rights = 0; rights < 16; rights++) {
+            seed = next(seed);
+            CASTLING[rights] = mix(seed);
+        }
+        for (int file = 0; file < 8; file++) {
+            seed = next(seed);
+            EN_PASSANT_FILE[file] = mix(seed);
+        }
+        BLACK_TO_MOVE = mix(next(seed));
+    }
+
+    private Zobrist() {
+    }
+
+    public static long piece(int piece, int square) {
+        return PIECE_SQUARE[piece][square];
+    }
+
+    /**
+     * @return the piece's key if it is a pawn, or 0, so the pawn key can be
+     *         updated for any piece without testing its type.
+     */
+    public static long pawn(int piece, int square) {
+        return PAWN_SQUARE[piece][square];
+    }
+
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    /**
+     * @return the key for an en passant square, or 0 for NO_SQUARE.
+     */
+    public static long enPassant(int square) {
+        return square == Bitboards.NO_SQUARE ? 0 : EN_PASSANT_FILE[Bitboards.fileOf(square)];
+    }
+
+    public static long blackToMove() {
+        return BLACK_TO_MOVE;
+    }
+
+    /**
+     * Computes a position's hash from scratch. The incrementally maintained
+     * hash must always equal this.
+     */
+    public static long compute(BitboardPosition position) {
+        long hash = 0;
+        long pieces = position.getOccupied();
+        while (pieces != 0) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            hash ^= PIECE_SQUARE[position.getPieceAt(square)][square];
+        }
+        hash ^= CASTLING[position.getCastlingRights()];
+        hash ^= enPassant(position.getEnPassantSquare());
+        if (!position.isWhiteToMove()) {
+            hash ^= BLACK_TO_MOVE;
+        }
+        return hash;
+    }
+
+    /**
+     * Computes a position's pawn key from scratch.
+     */
+    public static long computePawns(BitboardPosition position) {
+        long hash = 0;
+        for (int piece : new int[] { Bitboards.WHITE_PAWN, Bitboards.BLACK_PAWN }) {
+            long pawns = position.getPieceSet(piece);
+            while (pawns != 0) {
+                int square = Long.numberOfTrailingZeros(pawns);
+                pawns &= pawns - 1;
+                hash ^= PIECE_SQUARE[piece][square];
+            }
+        }
+        return hash;
+    }
+
+    private static long next(long seed) {
+        return seed + 0x9E3779B97F4A7C15L;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,32 @@
+package com.lacavedeharol.chess.model.evaluation;
+
+import com.lacavedeharol.chess.model.bitboard.BitboardPosition;
+
+/**
+ * Scores positions for the search. An evaluator may keep caches, so it is
+ * not expected to be thread safe: each search thread gets its own.
+ */
+public interface Evaluator {
+
+    /**
+     * Evaluates a position, knowing the search only needs to tell whether the
+     * score lies below, within or above a window. Outside the window the
+     * result may be an estimate, as long as it stays on the same side.
+     *
+     * @param position
+     * @param alpha    the lower bound of the window, for the side to move.
+     * @param beta     the upper bound of the window, for the side to move.
+     * @return the score in centipawns for the side to move.
+     */
+    int evaluate(BitboardPosition position, int alpha, int beta);
+
+    /**
+     * Evaluates a position exactly.
+     *
+     * @param position
+     * @return the score in centipawns for the side to move.
+     */
+    default int evaluate(BitboardPosition position) {
+        return evaluate(position, Integer.MIN_VALUE + 1, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,208 @@
+package com.lacavedeharol.chess.model.evaluation;
+
+import static com.lacavedeharol.chess.model.bitboard.Bitboards.*;
+
+import com.lacavedeharol.chess.model.bitboard.BitboardPosition;
+import com.lacavedeharol.chess.model.bitboard.MaterialKey;
+
+/**
+ * What the material signature alone says about a position, precomputed for
+ * every signature {@link MaterialKey} indexes so that evaluation needs a
+ * single array read:
+ * <ul>
+ * <li>an imbalance score for combinations the piece values miss, such as
+ * the bishop pair, White minus Black;</li>
+ * <li>a scale factor per side, out of {@link #FULL_SCALE}, applied to the
+ * endgame score when that side is ahead: lower for endgames that are hard
+ * to win whatever the count says;</li>
+ * <li>a kind: a draw by insufficient material, an endgame with its own
+ * evaluation, or a plain one.</li>
+ * </ul>
+ * The few signatures past the index, after unusual promotions, are worked
+ * out when probed.
+ */
+public final class MaterialTable {
+
+    /**
+     * The scale factor that leaves the endgame score as it is.
+     */
+    public static final int FULL_SCALE = 64;
+
+    public static final int KIND_NORMAL = 0;
+    /**
+     * Neither side has the material to mate: a dead draw.
+     */
+    public static final int KIND_DRAW = 1;
+    /**
+     * King, bishop and knight against a bare king: won, but only by driving
+     * the king to a corner the bishop controls.
+     */
+    public static final int KIND_KBNK = 2;
+    /**
+     * One bishop a side and otherwise only pawns: drawish if the bishops are
+     * on opposite colours, which the signature cannot tell.
+     */
+    public static final int KIND_SINGLE_BISHOPS = 3;
+
+    // Entry layout: kind (2) | black scale (7) | white scale (7) | imbalance (16, signed).
+    private static final int WHITE_SCALE_SHIFT = 16;
+    private static final int BLACK_SCALE_SHIFT = 23;
+    private static final int KIND_SHIFT = 30;
+    private static final int SCALE_MASK = 127;
+
+    // Piece codes relative to the side's pawn code.
+    private static final int BISHOP_OFFSET = WHITE_BISHOP - WHITE_PAWN;
+    private static final int KNIGHT_OFFSET = WHITE_KNIGHT - WHITE_PAWN;
+    private static final int ROOK_OFFSET = WHITE_ROOK - WHITE_PAWN;
+    private static final int QUEEN_OFFSET = WHITE_QUEEN - WHITE_PAWN;
+
+    private static final int BISHOP_PAIR = 40;
+    private static final int KNIGHT_PER_PAWN = 6; // A knight gains with each own pawn above 5...
+    private static final int ROOK_PER_PAWN = -12; // ...and a rook loses.
+    private static final int PAWNS_BASELINE = 5;
+
+    // Non-pawn material, as in PieceSquareTables.
+    private static final int KNIGHT_VALUE = 320;
+    private static final int BISHOP_VALUE = 330;
+    private static final int ROOK_VALUE = 500;
+    private static final int QUEEN_VALUE = 900;
+
+    private static final int[] ENTRIES = new int[MaterialKey.INDEX_SIZE];
+
+    static {
+        // Walk every key within the index's counts, in index order.
+        int[] counts = new int[12];
+        int[] limits = { 8, 2, 2, 2, 1, 0, 8, 2, 2, 2, 1, 0 };
+        for (int index = 0; index < ENTRIES.length; index++) {
+            long key = 0;
+            for (int piece = 0; piece < 12; piece++) {
+                key += counts[piece] * MaterialKey.keyUnit(piece);
+            }
+            ENTRIES[MaterialKey.index(key)] = compute(key);
+            for (int piece = 0; piece < 12; piece++) {
+                if (counts[piece] < limits[piece]) {
+                    counts[piece]++;
+                    break;
+                }
+                counts[piece] = 0;
+            }
+        }
+    }
+
+    private MaterialTable() {
+    }
+
+    /**
+     * @param position
+     * @return the packed entry for the position's material signature.
+     */
+    public static int probe(BitboardPosition position) {
+        long key = position.getMaterialKey();
+        return MaterialKey.isIndexed(key) ? ENTRIES[position.getMaterialIndex()] : compute(key);
+    }
+
+    /**
+     * @return the imbalance score, White minus Black.
+     */
+    public static int imbalance(int entry) {
+        return (short) entry;
+    }
+
+    /**
+     * @return the scale factor for the endgame score when a side is ahead.
+     */
+    public static int scale(int entry, boolean isWhite) {
+        return (entry >>> (isWhite ? WHITE_SCALE_SHIFT : BLACK_SCALE_SHIFT)) & SCALE_MASK;
+    }
+
+    public static int kind(int entry) {
+        return entry >>> KIND_SHIFT;
+    }
+
+    public static boolean isDraw(int entry) {
+        return kind(entry) == KIND_DRAW;
+    }
+
+    private static int compute(long key) {
+        int imbalance = imbalance(key, true) - imbalance(key, false);
+        int kind = kind(key);
+        int whiteScale = kind == KIND_DRAW ? 0 : scale(key, true);
+        int blackScale = kind == KIND_DRAW ? 0 : scale(key, false);
+        return (imbalance & 0xFFFF) | (whiteScale << WHITE_SCALE_SHIFT) | (blackScale << BLACK_SCALE_SHIFT)
+                | (kind << KIND_SHIFT);
+    }
+
+    private static int imbalance(long key, boolean isWhite) {
+        int base = isWhite ? WHITE_PAWN : BLACK_PAWN;
+        int pawnsAboveBaseline = MaterialKey.count(key, base) - PAWNS_BASELINE;
+        int score = MaterialKey.count(key, base + KNIGHT_OFFSET) * KNIGHT_PER_PAWN * pawnsAboveBaseline
+                + MaterialKey.count(key, base + ROOK_OFFSET) * ROOK_PER_PAWN * pawnsAboveBaseline;
+        if (MaterialKey.count(key, base + BISHOP_OFFSET) >= 2) {
+            score += BISHOP_PAIR;
+        }
+        return score;
+    }
+
+    private static int kind(long key) {
+        int whitePawns = MaterialKey.count(key, WHITE_PAWN);
+        int blackPawns = MaterialKey.count(key, BLACK_PAWN);
+        int whiteMinors = MaterialKey.count(key, WHITE_KNIGHT) + MaterialKey.count(key, WHITE_BISHOP);
+        int blackMinors = MaterialKey.count(key, BLACK_KNIGHT) + MaterialKey.count(key, BLACK_BISHOP);
+        int whiteMajors = MaterialKey.count(key, WHITE_ROOK) + MaterialKey.count(key, WHITE_QUEEN);
+        int blackMajors = MaterialKey.count(key, BLACK_ROOK) + MaterialKey.count(key, BLACK_QUEEN);
+
+        if (whitePawns + blackPawns + whiteMajors + blackMajors == 0) {
+            // A lone minor piece cannot mate, and a bare king cannot be helped to.
+            if ((whiteMinors == 0 && blackMinors <= 1) || (blackMinors == 0 && whiteMinors <= 1)) {
+                return KIND_DRAW;
+            }
+            if ((isBishopAndKnight(key, true) && blackMinors == 0)
+                    || (isBishopAndKnight(key, false) && whiteMinors == 0)) {
+                return KIND_KBNK;
+            }
+        }
+        if (whiteMajors + blackMajors == 0 && whiteMinors == 1 && blackMinors == 1
+                && MaterialKey.count(key, WHITE_BISHOP) == 1 && MaterialKey.count(key, BLACK_BISHOP) == 1) {
+            return KIND_SINGLE_BISHOPS;
+        }
+        return KIND_NORMAL;
+    }
+
+    private static boolean isBishopAndKnight(long key, boolean isWhite) {
+        int base = isWhite ? WHITE_PAWN : BLACK_PAWN;
+        return MaterialKey.count(key, base + BISHOP_OFFSET) == 1 && MaterialKey.count(key, base + KNIGHT_OFFSET) == 1
+                && MaterialKey.count(key, base + ROOK_OFFSET) + MaterialKey.count(key, base + QUEEN_OFFSET) == 0;
+    }
+
+    /**
+     * A side with no pawns needs more than a minor piece's worth of extra
+     * material to win: less and the endgame is drawn or close to it. Two
+     * knights cannot force mate either.
+     */
+    private static int scale(long key, boolean isWhite) {
+        int base = isWhite ? WHITE_PAWN : BLACK_PAWN;
+        int enemyBase = isWhite ? BLACK_PAWN : WHITE_PAWN;
+        if (MaterialKey.count(key, base) > 0) {
+            return FULL_SCALE;
+        }
+        int material = nonPawnMaterial(key, base);
+        int enemyMaterial = nonPawnMaterial(key, enemyBase);
+        if (material == 2 * KNIGHT_VALUE && MaterialKey.count(key, base + KNIGHT_OFFSET) == 2) {
+            return 0;
+        }
+        if (material - enemyMaterial > BISHOP_VALUE) {
+            return FULL_SCALE;
+        }
+        if (material < ROOK_VALUE) {
+            return 0;
+        }
+        return enemyMaterial <= BISHOP_VALUE ? 4 : 14;
+    }
+
+    private static int nonPawnMaterial(long key, int base) {
+        return MaterialKey.count(key, base + KNIGHT_OFFSET) * KNIGHT_VALUE
+                + MaterialKey.count(key, base + BISHOP_OFFSET) * BISHOP_VALUE
+                + MaterialKey.count(key, base + ROOK_OFFSET) * ROOK_VALUE
+                + MaterialKey.count(key, base + QUEEN_OFFSET) * QUEEN_VALUE;
+    }
+}
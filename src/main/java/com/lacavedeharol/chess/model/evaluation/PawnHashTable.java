@@ -0,0 +1,108 @@
+package com.lacavedeharol.chess.model.evaluation;
+
+import com.lacavedeharol.chess.model.bitboard.BitboardPosition;
+import com.lacavedeharol.chess.model.bitboard.Bitboards;
+
+/**
+ * A fixed-size cache of pawn structure evaluations keyed by the position's
+ * pawn key. Pawns move far less often than pieces, so nearly every leaf of a
+ * search finds its structure already scored; a miss scores it with
+ * {@link PawnStructure} and overwrites the slot.
+ *
+ * The entries are allocated up front and reused, so probing allocates
+ * nothing. A table is not thread safe: each search thread owns one.
+ */
+public class PawnHashTable {
+
+    /**
+     * The cached evaluation of one pawn structure. Only valid until the next
+     * probe of the table that returned it.
+     */
+    public static final class Entry {
+
+        private long key;
+        int midgame;
+        int endgame;
+        long whitePassed;
+        long blackPassed;
+
+        /**
+         * @return the middlegame pawn structure score, White minus Black.
+         */
+        public int getMidgame() {
+            return midgame;
+        }
+
+        /**
+         * @return the endgame pawn structure score, White minus Black.
+         */
+        public int getEndgame() {
+            return endgame;
+        }
+
+        /**
+         * @return one side's passed pawns.
+         */
+        public long getPassedPawns(boolean isWhite) {
+            return isWhite ? whitePassed : blackPassed;
+        }
+    }
+
+    private final Entry[] entries;
+    private final int indexMask;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param sizeKb the table size, rounded down to a power of two entries.
+     */
+    public PawnHashTable(int sizeKb) {
+        int approximateEntryBytes = 48;
+        int count = Integer.highestOneBit(Math.max(1, sizeKb * 1024 / approximateEntryBytes));
+        this.entries = new Entry[count];
+        for (int i = 0; i < count; i++) {
+            entries[i] = new Entry();
+        }
+        this.indexMask = count - 1;
+        clear();
+    }
+
+    /**
+     * Looks up a position's pawn structure, scoring it first if it is not
+     * stored.
+     *
+     * @param position
+     * @return the entry for the position's pawns.
+     */
+    public Entry probe(BitboardPosition position) {
+        long key = position.getPawnHash();
+        Entry entry = entries[(int) key & indexMask];
+        if (entry.key == key) {
+            hits++;
+            return entry;
+        }
+        misses++;
+        PawnStructure.evaluate(position.getPieceSet(Bitboards.WHITE_PAWN), position.getPieceSet(Bitboards.BLACK_PAWN),
+                entry);
+        entry.key = key;
+        return entry;
+    }
+
+    public void clear() {
+        for (Entry entry : entries) {
+            // No pawn structure hashes to this key except by a 1 in 2^64 chance.
+            entry.key = -1;
+        }
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * @return the share of probes answered from the table since it was
+     *         created or cleared, from 0 to 1.
+     */
+    public double getHitRate() {
+        long probes = hits + misses;
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+}
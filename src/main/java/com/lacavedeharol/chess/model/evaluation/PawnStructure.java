@@ -0,0 +1,158 @@
+package com.lacavedeharol.chess.model.evaluation;
+
+import com.lacavedeharol.chess.model.bitboard.AttackTables;
+import com.lacavedeharol.chess.model.bitboard.Bitboards;
+
+/**
+ * Pawn structure terms: doubled, isolated, backward and passed pawns. They
+ * depend on the pawns alone, so {@link PawnHashTable} caches them by pawn
+ * key and they are only worked out for structures it has not seen.
+ *
+ * Squares are numbered from a8, so White's pawns advance towards lower
+ * squares.
+ */
+public final class PawnStructure {
+
+    private static final int DOUBLED_MIDGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+    private static final int BACKWARD_MIDGAME = -8;
+    private static final int BACKWARD_ENDGAME = -10;
+
+    // Passed pawn bonuses by ranks advanced from the pawn's own second rank.
+    private static final int[] PASSED_MIDGAME = { 0, 5, 10, 20, 35, 60 };
+    private static final int[] PASSED_ENDGAME = { 0, 10, 20, 40, 70, 120 };
+
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    // Indexed by colour then square: the squares ahead of a pawn on its file
+    // and both neighbouring files, which must hold no enemy pawn for it to
+    // be passed.
+    private static final long[][] PASSED_SPAN = new long[2][64];
+    // The squares beside and behind a pawn on the neighbouring files, where a
+    // friendly pawn could still advance to defend it.
+    private static final long[][] SUPPORT_SPAN = new long[2][64];
+
+    static {
+        for (int file = 0; file < 8; file++) {
+            FILES[file] = Bitboards.FILE_A << file;
+        }
+        for (int file = 0; file < 8; file++) {
+            ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0) | (file < 7 ? FILES[file + 1] : 0);
+        }
+        for (int square = 0; square < 64; square++) {
+            int file = Bitboards.fileOf(square);
+            int rank = Bitboards.rankOf(square);
+            long filesAround = FILES[file] | ADJACENT_FILES[file];
+            for (int other = 0; other < 64; other++) {
+                int otherRank = Bitboards.rankOf(other);
+                long bit = Bitboards.bit(other);
+                if ((filesAround & bit) == 0) {
+                    continue;
+                }
+                if (otherRank < rank) {
+                    PASSED_SPAN[Bitboards.WHITE][square] |= bit;
+                } else if (otherRank > rank) {
+                    PASSED_SPAN[Bitboards.BLACK][square] |= bit;
+                }
+                if ((ADJACENT_FILES[file] & bit) != 0) {
+                    if (otherRank >= rank) {
+                        SUPPORT_SPAN[Bitboards.WHITE][square] |= bit;
+                    }
+                    if (otherRank <= rank) {
+                        SUPPORT_SPAN[Bitboards.BLACK][square] |= bit;
+                    }
+                }
+            }
+        }
+    }
+
+    private PawnStructure() {
+    }
+
+    /**
+     * Scores a pawn structure into a table entry.
+     *
+     * @param whitePawns
+     * @param blackPawns
+     * @param entry      receives the middlegame and endgame scores, White
+     *                   minus Black, and both sides' passed pawns.
+     */
+    static void evaluate(long whitePawns, long blackPawns, PawnHashTable.Entry entry) {
+        long whitePassed = passedPawns(whitePawns, blackPawns, true);
+        long blackPassed = passedPawns(blackPawns, whitePawns, false);
+        entry.midgame = score(whitePawns, blackPawns, whitePassed, true, true)
+                - score(blackPawns, whitePawns, blackPassed, false, true);
+        entry.endgame = score(whitePawns, blackPawns, whitePassed, true, false)
+                - score(blackPawns, whitePawns, blackPassed, false, false);
+        entry.whitePassed = whitePassed;
+        entry.blackPassed = blackPassed;
+    }
+
+    /**
+     * @return the squares ahead of a pawn on its file, up to the promotion
+     *         square.
+     */
+    public static long frontSpan(int square, boolean isWhite) {
+        return PASSED_SPAN[isWhite ? Bitboards.WHITE : Bitboards.BLACK][square] & FILES[Bitboards.fileOf(square)];
+    }
+
+    /**
+     * @return how many ranks a pawn has advanced from its starting rank: 0
+     *         to 5, the last on the rank before promotion.
+     */
+    public static int advance(int square, boolean isWhite) {
+        int rank = Bitboards.rankOf(square);
+        return isWhite ? 6 - rank : rank - 1;
+    }
+
+    private static long passedPawns(long pawns, long enemyPawns, boolean isWhite) {
+        long[] spans = PASSED_SPAN[isWhite ? Bitboards.WHITE : Bitboards.BLACK];
+        long passed = 0;
+        for (long remaining = pawns; remaining != 0; remaining &= remaining - 1) {
+            int square = Long.numberOfTrailingZeros(remaining);
+            // A pawn behind a friendly one on the same file is not passed; only the front one is.
+            if ((spans[square] & enemyPawns) == 0 && (frontSpan(square, isWhite) & pawns) == 0) {
+                passed |= Bitboards.bit(square);
+            }
+        }
+        return passed;
+    }
+
+    /**
+     * @return one side's pawn structure score for a game stage.
+     */
+    private static int score(long pawns, long enemyPawns, long passed, boolean isWhite, boolean midgame) {
+        int score = 0;
+        for (int file = 0; file < 8; file++) {
+            int count = Long.bitCount(pawns & FILES[file]);
+            if (count > 1) {
+                score += (count - 1) * (midgame ? DOUBLED_MIDGAME : DOUBLED_ENDGAME);
+            }
+        }
+        long[] support = SUPPORT_SPAN[isWhite ? Bitboards.WHITE : Bitboards.BLACK];
+        for (long remaining = pawns; remaining != 0; remaining &= remaining - 1) {
+            int square = Long.numberOfTrailingZeros(remaining);
+            if ((ADJACENT_FILES[Bitboards.fileOf(square)] & pawns) == 0) {
+                score += midgame ? ISOLATED_MIDGAME : ISOLATED_ENDGAME;
+            } else if ((support[square] & pawns) == 0 && isStopSquareAttacked(square, enemyPawns, isWhite)) {
+                score += midgame ? BACKWARD_MIDGAME : BACKWARD_ENDGAME;
+            }
+            if ((passed & Bitboards.bit(square)) != 0) {
+                int advance = advance(square, isWhite);
+                score += midgame ? PASSED_MIDGAME[advance] : PASSED_ENDGAME[advance];
+            }
+        }
+        return score;
+    }
+
+    /**
+     * @return whether an enemy pawn guards the square in front of a pawn, so
+     *         it cannot safely advance to meet its neighbours.
+     */
+    private static boolean isStopSquareAttacked(int square, long enemyPawns, boolean isWhite) {
+        int stop = isWhite ? square - 8 : square + 8;
+        return stop >= 0 && stop < 64 && (AttackTables.pawnAttacks(isWhite, stop) & enemyPawns) != 0;
+    }
+}
@@ -0,0 +1,249 @@
+package com.lacavedeharol.chess.model.evaluation;
+
+import com.lacavedeharol.chess.model.bitboard.AttackTables;
+import com.lacavedeharol.chess.model.bitboard.BitboardPosition;
+import com.lacavedeharol.chess.model.bitboard.Bitboards;
+import com.lacavedeharol.chess.model.bitboard.PieceSquareTables;
+
+/**
+ * The AI's evaluation, worked out in two tiers of increasing cost:
+ * <ol>
+ * <li>material, piece-square values and the material table's endgame
+ * knowledge, all kept up to date by the position or read from a table;</li>
+ * <li>pawn structure from the pawn hash table, mobility and king safety,
+ * which need the pieces' attacks.</li>
+ * </ol>
+ * Each sums a middlegame and an endgame score, blended by game phase. When
+ * lazy, the second tier is skipped if the first one's score is so far
+ * outside the window that the rest could not bring it back by
+ * {@link #LAZY_MARGIN}.
+ */
+public class TieredEvaluator implements Evaluator {
+
+    /**
+     * More than the second tier adds up to in all but freak positions.
+     */
+    public static final int LAZY_MARGIN = 400;
+
+    private static final int PAWN_HASH_SIZE_KB = 512;
+    private static final int UNBLOCKED_PASSED_PAWN_BONUS = 20; // Endgame only
+    private static final int OPPOSITE_BISHOPS_SCALE = MaterialTable.FULL_SCALE / 2;
+    private static final int KBNK_CORNER_PENALTY = 20; // Per square the lone king is from a mating corner
+    private static final int KBNK_KING_DISTANCE_PENALTY = 5; // Per square between the kings
+    private static final long LIGHT_SQUARES = 0xAA55AA55AA55AA55L;
+
+    // Indexed by piece type: PAWN, BISHOP, KNIGHT, ROOK, QUEEN, KING. Per square
+    // a piece reaches that is neither its own side's nor guarded by an enemy pawn.
+    private static final int[] MOBILITY_MIDGAME = { 0, 5, 4, 2, 1, 0 };
+    private static final int[] MOBILITY_ENDGAME = { 0, 5, 4, 4, 2, 0 };
+    // How much each attacker of the squares around a king adds to its danger.
+    private static final int[] KING_ATTACK_WEIGHT = { 0, 2, 2, 3, 5, 0 };
+    // Middlegame bonus for the attacking side by the king danger it adds up to.
+    private static final int[] KING_DANGER = { 0, 0, 5, 10, 20, 30, 45, 60, 80, 100, 125, 150, 180, 210, 240, 270,
+            300 };
+
+    private final boolean lazy;
+    private final PawnHashTable pawnHashTable = new PawnHashTable(PAWN_HASH_SIZE_KB);
+    // Second tier scores of the side being summed, White minus Black once both are in.
+    private int midgameTerms;
+    private int endgameTerms;
+    private long evaluations;
+    private long lazyExits;
+
+    /**
+     * Creates a lazy evaluator.
+     */
+    public TieredEvaluator() {
+        this(true);
+    }
+
+    /**
+     * @param lazy true to skip the second tier when the score is far outside
+     *             the window.
+     */
+    public TieredEvaluator(boolean lazy) {
+        this.lazy = lazy;
+    }
+
+    @Override
+    public int evaluate(BitboardPosition position, int alpha, int beta) {
+        evaluations++;
+        // What the piece counts alone tell: draws, hard-to-win endgames and imbalances.
+        int material = MaterialTable.probe(position);
+        if (MaterialTable.isDraw(material)) {
+            return 0;
+        }
+
+        // First tier: material and piece-square values are kept up to date by the
+        // position as moves are made.
+        int imbalance = MaterialTable.imbalance(material);
+        int midgame = position.getMidgameScore() + imbalance;
+        int endgame = position.getEndgameScore() + imbalance;
+        if (MaterialTable.kind(material) == MaterialTable.KIND_KBNK) {
+            endgame += kbnkBonus(position);
+        }
+        if (lazy) {
+            int score = forSideToMove(position, PieceSquareTables.taper(midgame,
+                    scaleEndgame(position, material, endgame), position.getPhase()));
+            if (score + LAZY_MARGIN <= alpha || score - LAZY_MARGIN >= beta) {
+                lazyExits++;
+                return score;
+            }
+        }
+
+        // Second tier: pawn structure scores are cached by pawn key, the rest needs attacks.
+        PawnHashTable.Entry pawns = pawnHashTable.probe(position);
+        midgame += pawns.getMidgame();
+        endgame += pawns.getEndgame() + UNBLOCKED_PASSED_PAWN_BONUS
+                * (unblockedPassedPawns(position, pawns, true) - unblockedPassedPawns(position, pawns, false));
+        midgameTerms = 0;
+        endgameTerms = 0;
+        addPieceActivity(position, true);
+        addPieceActivity(position, false);
+        midgame += midgameTerms;
+        endgame += endgameTerms;
+
+        return forSideToMove(position, PieceSquareTables.taper(midgame,
+                scaleEndgame(position, material, endgame), position.getPhase()));
+    }
+
+    /**
+     * @return the share of probes the pawn hash table answered since this
+     *         evaluator was created, from 0 to 1.
+     */
+    public double getPawnHashHitRate() {
+        return pawnHashTable.getHitRate();
+    }
+
+    /**
+     * @return the share of evaluations that stopped after the first tier, from
+     *         0 to 1.
+     */
+    public double getLazyExitRate() {
+        return evaluations == 0 ? 0 : (double) lazyExits / evaluations;
+    }
+
+    private static int forSideToMove(BitboardPosition position, int score) {
+        return position.isWhiteToMove() ? score : -score;
+    }
+
+    /**
+     * Adds one side's mobility and the danger it poses to the enemy king to
+     * the second tier scores.
+     *
+     * @param position
+     * @param isWhite
+     */
+    private void addPieceActivity(BitboardPosition position, boolean isWhite) {
+        long occupied = position.getOccupied();
+        long own = position.getOccupancy(isWhite);
+        long safe = ~own & ~pawnAttacks(position.getPieceSet(isWhite ? Bitboards.BLACK_PAWN : Bitboards.WHITE_PAWN),
+                !isWhite);
+        int enemyKing = position.getKingSquare(!isWhite);
+        long kingZone = enemyKing == Bitboards.NO_SQUARE ? 0
+                : AttackTables.kingAttacks(enemyKing) | Bitboards.bit(enemyKing);
+
+        int midgame = 0;
+        int endgame = 0;
+        int danger = 0;
+        int base = isWhite ? Bitboards.WHITE_PAWN : Bitboards.BLACK_PAWN;
+        for (int type = 1; type <= 4; type++) { // Bishops, knights, rooks and queens
+            for (long pieces = position.getPieceSet(base + type); pieces != 0; pieces &= pieces - 1) {
+                int square = Long.numberOfTrailingZeros(pieces);
+                long attacks = AttackTables.attacks(base + type, square, occupied);
+                int reach = Long.bitCount(attacks & safe);
+                midgame += MOBILITY_MIDGAME[type] * reach;
+                endgame += MOBILITY_ENDGAME[type] * reach;
+                if ((attacks & kingZone) != 0) {
+                    danger += KING_ATTACK_WEIGHT[type];
+                }
+            }
+        }
+        // Attacks on the king only matter while there is material to mate with.
+        midgame += KING_DANGER[Math.min(danger, KING_DANGER.length - 1)];
+
+        int sign = isWhite ? 1 : -1;
+        midgameTerms += sign * midgame;
+        endgameTerms += sign * endgame;
+    }
+
+    /**
+     * @return the squares a side's pawns attack.
+     */
+    private static long pawnAttacks(long pawns, boolean isWhite) {
+        // Squares are numbered from a8, so White's pawns attack towards lower squares.
+        return isWhite
+                ? ((pawns & ~Bitboards.FILE_A) >>> 9) | ((pawns & ~Bitboards.FILE_H) >>> 7)
+                : ((pawns & ~Bitboards.FILE_A) << 7) | ((pawns & ~Bitboards.FILE_H) << 9);
+    }
+
+    /**
+     * Counts one side's passed pawns with nothing standing between them and
+     * promotion.
+     *
+     * @param position
+     * @param pawns    the position's pawn structure entry.
+     * @param isWhite
+     * @return
+     */
+    private static int unblockedPassedPawns(BitboardPosition position, PawnHashTable.Entry pawns, boolean isWhite) {
+        int count = 0;
+        for (long passed = pawns.getPassedPawns(isWhite); passed != 0; passed &= passed - 1) {
+            int square = Long.numberOfTrailingZeros(passed);
+            if ((PawnStructure.frontSpan(square, isWhite) & position.getOccupied()) == 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Applies the material table's knowledge of particular endgames to the
+     * endgame score.
+     *
+     * @param position
+     * @param material the position's material table entry.
+     * @param endgame  the endgame score, White minus Black.
+     * @return the adjusted endgame score.
+     */
+    private static int scaleEndgame(BitboardPosition position, int material, int endgame) {
+        int scale = MaterialTable.scale(material, endgame > 0);
+        if (MaterialTable.kind(material) == MaterialTable.KIND_SINGLE_BISHOPS) {
+            long whiteBishop = position.getPieceSet(Bitboards.WHITE_BISHOP);
+            long blackBishop = position.getPieceSet(Bitboards.BLACK_BISHOP);
+            if (((whiteBishop & LIGHT_SQUARES) == 0) != ((blackBishop & LIGHT_SQUARES) == 0)) {
+                scale = Math.min(scale, OPPOSITE_BISHOPS_SCALE);
+            }
+        }
+        return endgame * scale / MaterialTable.FULL_SCALE;
+    }
+
+    /**
+     * Guides king, bishop and knight against king: the lone king can only be
+     * mated in a corner of the bishop's colour, so the closer it is to one,
+     * and the closer the kings, the better for the stronger side.
+     *
+     * @param position
+     * @return the bonus, White minus Black.
+     */
+    private static int kbnkBonus(BitboardPosition position) {
+        boolean isWhiteStrong = position.getPieceSet(Bitboards.WHITE_BISHOP) != 0;
+        long bishop = position.getPieceSet(isWhiteStrong ? Bitboards.WHITE_BISHOP : Bitboards.BLACK_BISHOP);
+        int loneKing = position.getKingSquare(!isWhiteStrong);
+        int strongKing = position.getKingSquare(isWhiteStrong);
+        // a8 and h1 are light, a1 and h8 dark.
+        boolean isLightBishop = (bishop & LIGHT_SQUARES) != 0;
+        int cornerDistance = Math.min(distance(loneKing, Bitboards.square(0, isLightBishop ? 0 : 7)),
+                distance(loneKing, Bitboards.square(7, isLightBishop ? 7 : 0)));
+        int bonus = -KBNK_CORNER_PENALTY * cornerDistance - KBNK_KING_DISTANCE_PENALTY * distance(loneKing, strongKing);
+        return isWhiteStrong ? bonus : -bonus;
+    }
+
+    /**
+     * @return the number of king moves between two squares.
+     */
+    private static int distance(int a, int b) {
+        return Math.max(Math.abs(Bitboards.fileOf(a) - Bitboards.fileOf(b)),
+                Math.abs(Bitboards.rankOf(a) - Bitboards.rankOf(b)));
+    }
+}
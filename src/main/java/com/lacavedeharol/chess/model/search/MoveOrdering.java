@@ -0,0 +1,139 @@
+package com.lacavedeharol.chess.model.search;
+
+import java.util.Arrays;
+
+import com.lacavedeharol.chess.model.PieceType;
+
+/**
+ * Ordering heuristics for alpha-beta: alpha-beta cuts off sooner the earlier
+ * the best move is tried. Moves are scored into bands, highest first:
+ * <ol>
+ * <li>the transposition table (or previous iteration's) move,</li>
+ * <li>captures, most valuable victim first, least valuable attacker as a tie
+ * break (MVV-LVA),</li>
+ * <li>the two killer moves of this ply: quiet moves that caused a cutoff in a
+ * sibling node,</li>
+ * <li>other quiet moves by their butterfly history score: how often that
+ * from-to pair has caused cutoffs anywhere in the tree.</li>
+ * </ol>
+ * The killers and history belong to one search thread and are not thread
+ * safe.
+ */
+public class MoveOrdering {
+
+    public static final int HASH_MOVE_SCORE = 1_000_000;
+    public static final int CAPTURE_SCORE = 500_000;
+    public static final int FIRST_KILLER_SCORE = 400_000;
+    public static final int SECOND_KILLER_SCORE = 390_000;
+
+    public static final int MAX_PLY = 128;
+    private static final int MAX_HISTORY = 100_000;
+
+    // Indexed by PieceType ordinal: PAWN, BISHOP, KNIGHT, ROOK, QUEEN, KING.
+    private static final int[] ORDER_VALUE = { 1, 3, 3, 5, 9, 20 };
+
+    private final int[][] killers;
+    private final int[][][] history;
+
+    public MoveOrdering() {
+        this.killers = new int[MAX_PLY][2];
+        this.history = new int[2][64][64];
+    }
+
+    /**
+     * Scores a capture by most-valuable-victim / least-valuable-attacker.
+     */
+    public static int captureScore(PieceType victim, PieceType attacker) {
+        return CAPTURE_SCORE + ORDER_VALUE[victim.ordinal()] * 64 - ORDER_VALUE[attacker.ordinal()];
+    }
+
+    /**
+     * @return a piece's rough value in pawns, as used for MVV-LVA.
+     */
+    static int orderValue(PieceType pieceType) {
+        return ORDER_VALUE[pieceType.ordinal()];
+    }
+
+    /**
+     * Scores a quiet move from the killers of its ply, then its history.
+     *
+     * @param move    the packed move, compared with the stored killers.
+     * @param ply     distance from the root.
+     * @param isWhite the side making the move.
+     * @param from
+     * @param to
+     */
+    public int quietScore(int move, int ply, boolean isWhite, int from, int to) {
+        if (ply < MAX_PLY) {
+            if (killers[ply][0] == move) {
+                return FIRST_KILLER_SCORE;
+            }
+            if (killers[ply][1] == move) {
+                return SECOND_KILLER_SCORE;
+            }
+        }
+        return history[isWhite ? 0 : 1][from][to];
+    }
+
+    /**
+     * @param ply  distance from the root.
+     * @param slot 0 for the most recent killer, 1 for the one before.
+     * @return the killer's from-to, 0 if none.
+     */
+    public int killer(int ply, int slot) {
+        return ply < MAX_PLY ? killers[ply][slot] : 0;
+    }
+
+    /**
+     * Records a quiet move that caused a cutoff: it becomes the first killer of
+     * its ply and its history score grows with the depth of the cutoff.
+     */
+    public void recordCutoff(int move, int ply, boolean isWhite, int from, int to, int depth) {
+        if (ply < MAX_PLY && killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] scores = history[isWhite ? 0 : 1][from];
+        scores[to] += depth * depth;
+        if (scores[to] > MAX_HISTORY) {
+            ageHistory();
+        }
+    }
+
+    /**
+     * Prepares for a new search: killers are position specific and dropped,
+     * history is halved so older results fade out.
+     */
+    public void newSearch() {
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = 0;
+            plyKillers[1] = 0;
+        }
+        ageHistory();
+    }
+
+    /**
+     * Forgets everything learned so far.
+     */
+    public void clear() {
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = 0;
+            plyKillers[1] = 0;
+        }
+        for (int[][] side : history) {
+            for (int[] fromSquare : side) {
+                Arrays.fill(fromSquare, 0);
+            }
+        }
+    }
+
+    private void ageHistory() {
+        for (int[][] side : history) {
+            for (int[] fromSquare : side) {
+                for (int to = 0; to < 64; to++) {
+                    fromSquare[to] >>= 1;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.lacavedeharol.chess.model.search;
+
+import com.lacavedeharol.chess.model.bitboard.BitboardPosition;
+import com.lacavedeharol.chess.model.bitboard.Bitboards;
+import com.lacavedeharol.chess.model.bitboard.MoveEncoding;
+import com.lacavedeharol.chess.model.bitboard.MoveGenerator;
+
+/**
+ * Hands out a node's moves one at a time, best first, generating them in
+ * stages so that a node which cuts off early never generates the rest:
+ * <ol>
+ * <li>the transposition table move, checked for legality but with nothing
+ * generated,</li>
+ * <li>good captures (and queen promotions) by MVV-LVA,</li>
+ * <li>the two killer moves of the ply,</li>
+ * <li>quiet moves by history score,</li>
+ * <li>bad captures: those static exchange evaluation says lose material.</li>
+ * </ol>
+ * A move is never handed out twice. One picker serves one ply of one search
+ * thread and is reused for every node at that ply, so picking allocates
+ * nothing.
+ */
+public final class MovePicker {
+
+    private static final int HASH_MOVE = 0;
+    private static final int GENERATE_CAPTURES = 1;
+    private static final int GOOD_CAPTURES = 2;
+    private static final int FIRST_KILLER = 3;
+    private static final int SECOND_KILLER = 4;
+    private static final int GENERATE_QUIETS = 5;
+    private static final int QUIETS = 6;
+    private static final int BAD_CAPTURES = 7;
+    private static final int DONE = 8;
+
+    private final MoveOrdering moveOrdering;
+    private final StaticExchange staticExchange = new StaticExchange();
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private final int[] scores = new int[MoveGenerator.MAX_MOVES];
+    private final int[] badCaptures = new int[MoveGenerator.MAX_MOVES];
+    private BitboardPosition position;
+    private int ply;
+    private int stage;
+    private int index, count;
+    private int badIndex, badCount;
+    private int hashMove, firstKiller, secondKiller;
+
+    /**
+     * @param moveOrdering the killers and history of the search thread.
+     */
+    public MovePicker(MoveOrdering moveOrdering) {
+        this.moveOrdering = moveOrdering;
+    }
+
+    /**
+     * Starts picking the moves of a new node.
+     *
+     * @param position the node, which must be unchanged whenever next is
+     *                 called.
+     * @param hashMove the from-to of the transposition table move, 0 if none.
+     * @param ply      distance from the root.
+     */
+    public void reset(BitboardPosition position, int hashMove, int ply) {
+        this.position = position;
+        this.ply = ply;
+        this.hashMove = hashMove != 0 ? MoveGenerator.legalMove(position, hashMove) : MoveEncoding.NO_MOVE;
+        this.firstKiller = MoveEncoding.NO_MOVE;
+        this.secondKiller = MoveEncoding.NO_MOVE;
+        this.stage = HASH_MOVE;
+        this.index = 0;
+        this.count = 0;
+        this.badIndex = 0;
+        this.badCount = 0;
+    }
+
+    /**
+     * @return the next move to search, or NO_MOVE when there are no more.
+     */
+    public int next() {
+        while (true) {
+            switch (stage) {
+                case HASH_MOVE -> {
+                    stage = GENERATE_CAPTURES;
+                    if (hashMove != MoveEncoding.NO_MOVE) {
+                        return hashMove;
+                    }
+                }
+                case GENERATE_CAPTURES -> {
+                    count = MoveGenerator.generateLegalCaptures(position, position.isWhiteToMove(), moves, 0);
+                    for (int i = 0; i < count; i++) {
+                        scores[i] = captureScore(moves[i]);
+                    }
+                    index = 0;
+                    stage = GOOD_CAPTURES;
+                }
+                case GOOD_CAPTURES -> {
+                    while (index < count) {
+                        int move = pick();
+                        if (move == hashMove) {
+                            continue;
+                        }
+                        if (isGoodCapture(move)) {
+                            return move;
+                        }
+                        badCaptures[badCount++] = move; // Tried last.
+                    }
+                    stage = FIRST_KILLER;
+                }
+                case FIRST_KILLER -> {
+                    stage = SECOND_KILLER;
+                    firstKiller = killer(0);
+                    if (firstKiller != MoveEncoding.NO_MOVE) {
+                        return firstKiller;
+                    }
+                }
+                case SECOND_KILLER -> {
+                    stage = GENERATE_QUIETS;
+                    secondKiller = killer(1);
+                    if (secondKiller != MoveEncoding.NO_MOVE) {
+                        return secondKiller;
+                    }
+                }
+                case GENERATE_QUIETS -> {
+                    count = MoveGenerator.generateLegalQuiets(position, position.isWhiteToMove(), moves, 0);
+                    for (int i = 0; i < count; i++) {
+                        int move = moves[i];
+                        scores[i] = moveOrdering.quietScore(MoveEncoding.fromTo(move), ply,
+                                position.isWhiteToMove(), MoveEncoding.from(move), MoveEncoding.to(move));
+                    }
+                    index = 0;
+                    stage = QUIETS;
+                }
+                case QUIETS -> {
+                    while (index < count) {
+                        int move = pick();
+                        if (move != hashMove && move != firstKiller && move != secondKiller) {
+                            return move;
+                        }
+                    }
+                    stage = BAD_CAPTURES;
+                }
+                case BAD_CAPTURES -> {
+                    if (badIndex < badCount) {
+                        return badCaptures[badIndex++];
+                    }
+                    stage = DONE;
+                }
+                default -> {
+                    return MoveEncoding.NO_MOVE;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the killer in a slot if it is a legal quiet move here that has
+     *         not been handed out already, otherwise NO_MOVE.
+     */
+    private int killer(int slot) {
+        int fromTo = moveOrdering.killer(ply, slot);
+        if (fromTo == 0) {
+            return MoveEncoding.NO_MOVE;
+        }
+        int move = MoveGenerator.legalMove(position, fromTo);
+        if (move == hashMove || move == firstKiller || MoveEncoding.isCapture(move)
+                || MoveEncoding.isPromotion(move)) {
+            return MoveEncoding.NO_MOVE;
+        }
+        return move;
+    }
+
+    /**
+     * A capture is good when taking a piece worth at least the capturer, or
+     * when the exchange it starts does not lose material.
+     */
+    private boolean isGoodCapture(int move) {
+        if (MoveEncoding.isPromotion(move)) {
+            return true;
+        }
+        int victim = MoveOrdering.orderValue(Bitboards.pieceType(MoveEncoding.captured(move)));
+        int attacker = MoveOrdering.orderValue(Bitboards.pieceType(MoveEncoding.piece(move)));
+        return victim >= attacker || staticExchange.evaluate(position, move) >= 0;
+    }
+
+    private static int captureScore(int move) {
+        if (!MoveEncoding.isCapture(move)) {
+            return MoveOrdering.CAPTURE_SCORE; // A queen promotion.
+        }
+        return MoveOrdering.captureScore(Bitboards.pieceType(MoveEncoding.captured(move)),
+                Bitboards.pieceType(MoveEncoding.piece(move)));
+    }
+
+    /**
+     * Selection sort one step at a time: swaps the best scored of the
+     * remaining moves to index and moves past it.
+     */
+    private int pick() {
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves[best];
+        moves[best] = moves[index];
+        moves[index] = move;
+        scores[best] = scores[index];
+        index++;
+        return move;
+    }
+}
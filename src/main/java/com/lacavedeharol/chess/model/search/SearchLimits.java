@@ -0,0 +1,42 @@
+package com.lacavedeharol.chess.model.search;
+
+/**
+ * When an iterative deepening search must stop. A value of 0 means no limit
+ * on that dimension; whichever limit is reached first ends the search, and the
+ * result of the last fully completed iteration is used.
+ *
+ * @param maxDepth         the deepest iteration to start.
+ * @param timeBudgetMillis wall-clock time allowed for the whole search.
+ * @param nodeBudget       positions allowed to be visited.
+ */
+public record SearchLimits(int maxDepth, long timeBudgetMillis, long nodeBudget) {
+
+    public static final int MAX_DEPTH = 64;
+
+    public SearchLimits {
+        if (maxDepth <= 0 || maxDepth > MAX_DEPTH) {
+            maxDepth = MAX_DEPTH;
+        }
+    }
+
+    /**
+     * Searches exactly to the given depth, however long it takes.
+     */
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    /**
+     * Searches as deep as the time budget allows.
+     */
+    public static SearchLimits time(long timeBudgetMillis) {
+        return new SearchLimits(MAX_DEPTH, timeBudgetMillis, 0);
+    }
+
+    /**
+     * Searches as deep as the node budget allows.
+     */
+    public static SearchLimits nodes(long nodeBudget) {
+        return new SearchLimits(MAX_DEPTH, 0, nodeBudget);
+    }
+}
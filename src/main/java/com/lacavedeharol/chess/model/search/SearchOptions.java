@@ -0,0 +1,30 @@
+package com.lacavedeharol.chess.model.search;
+
+/**
+ * Which selective search techniques are switched on. Each one skips or
+ * shortens searching moves that are very unlikely to matter, trading a small
+ * risk of missing something for a much deeper search in the same time.
+ * Turning them off one at a time shows what each saves.
+ *
+ * @param nullMovePruning    cut a node off when even passing the turn keeps
+ *                           the score above beta; verified by a reduced
+ *                           normal search when the side to move has so
+ *                           little material that zugzwang is likely.
+ * @param lateMoveReductions search quiet moves ordered late to a reduced
+ *                           depth first, and fully only if they surprise.
+ * @param futilityPruning    near the leaves, skip quiet moves (futility) or
+ *                           whole nodes (reverse futility) when the static
+ *                           evaluation is too far from the window to matter.
+ */
+public record SearchOptions(boolean nullMovePruning, boolean lateMoveReductions, boolean futilityPruning) {
+
+    /**
+     * Every technique on: what the AI plays with.
+     */
+    public static final SearchOptions ALL = new SearchOptions(true, true, true);
+
+    /**
+     * A full-width alpha-beta search, for comparison.
+     */
+    public static final SearchOptions NONE = new SearchOptions(false, false, false);
+}
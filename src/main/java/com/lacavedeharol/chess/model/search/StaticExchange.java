@@ -0,0 +1,130 @@
+package com.lacavedeharol.chess.model.search;
+
+import com.lacavedeharol.chess.model.PieceType;
+import com.lacavedeharol.chess.model.bitboard.AttackTables;
+import com.lacavedeharol.chess.model.bitboard.BitboardPosition;
+import com.lacavedeharol.chess.model.bitboard.Bitboards;
+import com.lacavedeharol.chess.model.bitboard.MoveEncoding;
+import com.lacavedeharol.chess.model.bitboard.MoveGenerator;
+
+/**
+ * Static exchange evaluation (SEE): the material a move wins or loses once
+ * both sides have made every capture on its target square worth making,
+ * always recapturing with their least valuable piece. Sliders lined up
+ * behind another attacker (x-rays) join in as the pieces in front of them
+ * are used up. Pins and checks are ignored, so it is an estimate, but one
+ * that costs no search.
+ *
+ * An instance keeps the scratch list of exchange results, so evaluating
+ * allocates nothing; it is not thread safe.
+ */
+public final class StaticExchange {
+
+    // Indexed by PieceType ordinal: PAWN, BISHOP, KNIGHT, ROOK, QUEEN, KING.
+    private static final int[] PIECE_VALUES = { 100, 330, 320, 500, 900, 20000 };
+
+    // Piece type indexes from least to most valuable.
+    private static final int[] CHEAPEST_FIRST = { 0, 2, 1, 3, 4, 5 };
+
+    private static final int MAX_EXCHANGES = 32;
+
+    private final int[] gain = new int[MAX_EXCHANGES];
+
+    /**
+     * @return a piece type's material value in centipawns.
+     */
+    public static int pieceValue(PieceType pieceType) {
+        return PIECE_VALUES[pieceType.ordinal()];
+    }
+
+    /**
+     * Works out the material balance of a capture sequence started by a move.
+     *
+     * @param position left unchanged.
+     * @param move     a legal move of the side to move.
+     * @return the mover's expected gain in centipawns: negative if the move
+     *         loses material, 0 for an even trade or a quiet move to a safe
+     *         square. The sign is exact; once a side is bound to lose the
+     *         exchange stops early, so the size may be further from 0 than
+     *         the full sequence would give.
+     */
+    public int evaluate(BitboardPosition position, int move) {
+        if (MoveEncoding.isCastling(move)) {
+            return 0;
+        }
+        int from = MoveEncoding.from(move);
+        int to = MoveEncoding.to(move);
+        int piece = MoveEncoding.piece(move);
+        boolean side = Bitboards.isWhite(piece);
+
+        long occupied = position.getOccupied() & ~Bitboards.bit(from);
+        if (MoveEncoding.isEnPassant(move)) {
+            occupied &= ~Bitboards.bit(side ? to + 8 : to - 8);
+        }
+        gain[0] = MoveEncoding.isCapture(move) ? value(MoveEncoding.captured(move)) : 0;
+        int onSquare = value(piece);
+        if (MoveEncoding.isPromotion(move)) {
+            onSquare = value(MoveEncoding.promotion(move));
+            gain[0] += onSquare - PIECE_VALUES[0];
+        }
+
+        long attackers = (MoveGenerator.attackersTo(position, to, true, occupied)
+                | MoveGenerator.attackersTo(position, to, false, occupied)) & occupied;
+        int depth = 0;
+        while (depth < MAX_EXCHANGES - 1) {
+            side = !side;
+            int attacker = leastValuableAttacker(position, attackers & position.getOccupancy(side), side);
+            if (attacker == Bitboards.NO_SQUARE) {
+                break;
+            }
+            depth++;
+            // What this side is up if it captures and the exchange ends there.
+            gain[depth] = onSquare - gain[depth - 1];
+            if (Math.max(-gain[depth - 1], gain[depth]) < 0) {
+                depth--; // This side loses either way; the rest cannot change the outcome's sign.
+                break;
+            }
+            onSquare = value(position.getPieceAt(attacker));
+            occupied &= ~Bitboards.bit(attacker);
+            attackers |= xrays(position, to, occupied);
+            attackers &= occupied;
+        }
+        while (depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+        return gain[0];
+    }
+
+    private static int value(int piece) {
+        return PIECE_VALUES[Bitboards.typeIndex(piece)];
+    }
+
+    private static int leastValuableAttacker(BitboardPosition position, long attackers, boolean isWhite) {
+        if (attackers == 0) {
+            return Bitboards.NO_SQUARE;
+        }
+        int base = isWhite ? Bitboards.WHITE_PAWN : Bitboards.BLACK_PAWN;
+        for (int type : CHEAPEST_FIRST) {
+            long pieces = attackers & position.getPieceSet(base + type);
+            if (pieces != 0) {
+                return Long.numberOfTrailingZeros(pieces);
+            }
+        }
+        return Bitboards.NO_SQUARE;
+    }
+
+    /**
+     * @return the sliders of either side attacking a square through the
+     *         remaining pieces.
+     */
+    private static long xrays(BitboardPosition position, int square, long occupied) {
+        long queens = position.getPieceSet(Bitboards.WHITE_QUEEN) | position.getPieceSet(Bitboards.BLACK_QUEEN);
+        long diagonal = position.getPieceSet(Bitboards.WHITE_BISHOP) | position.getPieceSet(Bitboards.BLACK_BISHOP)
+                | queens;
+        long straight = position.getPieceSet(Bitboards.WHITE_ROOK) | position.getPieceSet(Bitboards.BLACK_ROOK)
+                | queens;
+        return (AttackTables.bishopAttacks(square, occupied) & diagonal)
+                | (AttackTables.rookAttacks(square, occupied) & straight);
+    }
+}
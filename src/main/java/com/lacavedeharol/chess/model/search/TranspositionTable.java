@@ -0,0 +1,172 @@
+package com.lacavedeharol.chess.model.search;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * A fixed-size hash table of search results keyed by Zobrist hash.
+ *
+ * Each entry is two longs: the key XORed with the data, then the data itself
+ * (depth, bound type, generation, best move and score packed into 64 bits).
+ * Readers recompute key = first ^ second, so an entry torn by two threads
+ * writing at once simply fails to match instead of returning another
+ * position's data. That makes the table safe to share between search threads
+ * without any locking.
+ *
+ * Entries are grouped in buckets of two: the first slot keeps the deepest
+ * result of the current search (older generations may always be replaced),
+ * the second slot always takes the newest result.
+ */
+public class TranspositionTable {
+
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2; // Fail high: the score is at least this.
+    public static final int BOUND_UPPER = 3; // Fail low: the score is at most this.
+
+    // Data layout: score (32) | move (16) | generation (6) | bound (2) | depth (8).
+    private static final int DEPTH_BITS = 8;
+    private static final int BOUND_SHIFT = 8;
+    private static final int GENERATION_SHIFT = 10;
+    private static final int MOVE_SHIFT = 16;
+    private static final int SCORE_SHIFT = 32;
+    private static final int GENERATION_MASK = 63;
+
+    private static final int LONGS_PER_BUCKET = 4;
+    private static final long MAX_OFF_HEAP_BYTES = 1L << 30;
+
+    private final long[] heapSlots;
+    private final LongBuffer offHeapSlots;
+    private final long bucketMask;
+    private int generation;
+
+    /**
+     * Creates a table on the Java heap.
+     *
+     * @param sizeMb
+     */
+    public TranspositionTable(int sizeMb) {
+        this(sizeMb, false);
+    }
+
+    /**
+     * @param sizeMb  the table size, rounded down to a power of two buckets.
+     * @param offHeap true to keep the table in direct memory outside the
+     *                garbage-collected heap (at most 1 GB).
+     */
+    public TranspositionTable(int sizeMb, boolean offHeap) {
+        long bytes = Math.max(1, sizeMb) * 1024L * 1024L;
+        if (offHeap) {
+            bytes = Math.min(bytes, MAX_OFF_HEAP_BYTES);
+        }
+        long buckets = Long.highestOneBit(Math.min(bytes / (LONGS_PER_BUCKET * Long.BYTES),
+                Integer.MAX_VALUE / LONGS_PER_BUCKET));
+        this.bucketMask = buckets - 1;
+        int longs = (int) (buckets * LONGS_PER_BUCKET);
+        if (offHeap) {
+            this.heapSlots = null;
+            this.offHeapSlots = ByteBuffer.allocateDirect(longs * Long.BYTES)
+                    .order(ByteOrder.nativeOrder()).asLongBuffer();
+        } else {
+            this.heapSlots = new long[longs];
+            this.offHeapSlots = null;
+        }
+    }
+
+    /**
+     * Starts a new search generation, so entries left from earlier searches
+     * give way to new ones.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    public void clear() {
+        int longs = (int) ((bucketMask + 1) * LONGS_PER_BUCKET);
+        for (int i = 0; i < longs; i++) {
+            set(i, 0);
+        }
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key the position's Zobrist hash.
+     * @return the packed entry data, or 0 if the position is not stored.
+     */
+    public long probe(long key) {
+        int index = bucketIndex(key);
+        for (int slot = index; slot < index + LONGS_PER_BUCKET; slot += 2) {
+            long data = get(slot + 1);
+            if ((get(slot) ^ data) == key && data != 0) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores a search result.
+     *
+     * @param key   the position's Zobrist hash.
+     * @param depth the remaining depth the score was searched to.
+     * @param bound BOUND_EXACT, BOUND_LOWER or BOUND_UPPER.
+     * @param score
+     * @param move  the best move found, 0 if none.
+     */
+    public void store(long key, int depth, int bound, int score, int move) {
+        int index = bucketIndex(key);
+        long data = ((long) score << SCORE_SHIFT)
+                | ((long) (move & 0xFFFF) << MOVE_SHIFT)
+                | ((long) generation << GENERATION_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | Math.min(Math.max(depth, 0), (1 << DEPTH_BITS) - 1);
+
+        // Depth-preferred slot: same position, a deeper result, or a stale entry.
+        long preferred = get(index + 1);
+        if ((get(index) ^ preferred) == key || depth(preferred) <= depth
+                || generation(preferred) != generation) {
+            set(index, key ^ data);
+            set(index + 1, data);
+        } else {
+            set(index + 2, key ^ data);
+            set(index + 3, data);
+        }
+    }
+
+    public static int depth(long data) {
+        return (int) (data & ((1 << DEPTH_BITS) - 1));
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 3;
+    }
+
+    public static int move(long data) {
+        return (int) (data >>> MOVE_SHIFT) & 0xFFFF;
+    }
+
+    public static int score(long data) {
+        return (int) (data >> SCORE_SHIFT);
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> GENERATION_SHIFT) & GENERATION_MASK;
+    }
+
+    private int bucketIndex(long key) {
+        return (int) (key & bucketMask) * LONGS_PER_BUCKET;
+    }
+
+    private long get(int index) {
+        return heapSlots != null ? heapSlots[index] : offHeapSlots.get(index);
+    }
+
+    private void set(int index, long value) {
+        if (heapSlots != null) {
+            heapSlots[index] = value;
+        } else {
+            offHeapSlots.put(index, value);
+        }
+    }
+}
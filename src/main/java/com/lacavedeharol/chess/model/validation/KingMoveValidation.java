@@ -2,7 +2,9 @@ package com.lacavedeharol.chess.model.validation;
 
 import com.lacavedeharol.chess.model.ChessPiece;
 import com.lacavedeharol.chess.model.GameState;
-import com.lacavedeharol.chess.model.PieceType;
+import com.lacavedeharol.chess.model.bitboard.AttackTables;
+import com.lacavedeharol.chess.model.bitboard.BitboardPosition;
+import com.lacavedeharol.chess.model.bitboard.Bitboards;
 
 public class KingMoveValidation implements MoveValidationStrategy {
 
@@ -13,21 +15,19 @@ public class KingMoveValidation implements MoveValidationStrategy {
         int rankDiff = Math.abs(toRank - fromRank);
 
         // Normal king move: 1 square in any direction.
-        if (fileDiff <= 1 && rankDiff <= 1 && (fileDiff + rankDiff > 0)) {
-            ChessPiece target = gameState.getPieceAt(toFile, toRank);
-            return target == null || target.isWhite() != king.isWhite();
+        if (fileDiff <= 1 && rankDiff <= 1) {
+            long attacks = AttackTables.kingAttacks(MoveUtils.square(fromFile, fromRank));
+            return MoveUtils.canLandOn(attacks, king, toFile, toRank, gameState);
         }
 
         // Castling Move:
         /*
-         * Neither king nor Rook should have been moved.
+         * Neither king nor Rook should have been moved (tracked by the castling rights).
          * King cannot be in check.
          */
         else if (rankDiff == 0 && fileDiff == 2) {
 
-            if (king.hasMoved()) {
-                return false;
-            }
+            BitboardPosition position = gameState.getPosition();
 
             if (gameState.isSquareUnderAttack(fromFile, fromRank, !king.isWhite())) {
                 return false;
@@ -36,8 +36,7 @@ public class KingMoveValidation implements MoveValidationStrategy {
             // Determine if it's King-side or Queen-side.
             if (toFile > fromFile) { // King-side castling
                 // Rook must be at the corner and must not have moved.
-                ChessPiece rook = gameState.getPieceAt(7, fromRank);
-                if (rook == null || rook.getPieceType() != PieceType.ROOK || rook.hasMoved()) {
+                if (!position.hasCastlingRight(king.isWhite() ? Bitboards.WHITE_KINGSIDE : Bitboards.BLACK_KINGSIDE)) {
                     return false;
                 }
 
@@ -55,8 +54,7 @@ public class KingMoveValidation implements MoveValidationStrategy {
                 return true;
             } else { // Queen-side castling.
                 // Rook must be at the corner and must not have moved.
-                ChessPiece rook = gameState.getPieceAt(0, fromRank);
-                if (rook == null || rook.getPieceType() != PieceType.ROOK || rook.hasMoved()) {
+                if (!position.hasCastlingRight(king.isWhite() ? Bitboards.WHITE_QUEENSIDE : Bitboards.BLACK_QUEENSIDE)) {
                     return false;
                 }
 
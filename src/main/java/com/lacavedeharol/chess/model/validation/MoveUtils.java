@@ -1,6 +1,8 @@
 package com.lacavedeharol.chess.model.validation;
 
+import com.lacavedeharol.chess.model.ChessPiece;
 import com.lacavedeharol.chess.model.GameState;
+import com.lacavedeharol.chess.model.bitboard.Bitboards;
 
 public final class MoveUtils {
 
@@ -8,68 +10,37 @@ public final class MoveUtils {
     }
 
     /**
-     * Checks if the path is clear for a straight-line move (horizontal or
-     * vertical).
+     * Converts board coordinates to a bitboard square index.
      *
-     * @param fromFile
-     * @param fromRank
-     * @param toFile
-     * @param toRank
-     * @param gameState
-     * @return true for a clear path, false for a blocked path.
+     * @param file
+     * @param rank
+     * @return the square index, or -1 if off the board.
      */
-    public static boolean isPathClearStraight(int fromFile, int fromRank,
-            int toFile, int toRank,
-            GameState gameState) {
-
-        if (fromFile == toFile) { // Vertical move.
-            int step = Integer.signum(toRank - fromRank);
-            // Loop from the square after the start to the one before the end.
-            for (int r = fromRank + step; r != toRank; r += step) {
-                if (gameState.getPieceAt(fromFile, r) != null) {
-                    return false;
-                }
-            }
-        } else { // Horizontal move (guaranteed by validator).
-            int step = Integer.signum(toFile - fromFile);
-            // Loop from the square after the start to the one before the end.
-            for (int f = fromFile + step; f != toFile; f += step) {
-                if (gameState.getPieceAt(f, fromRank) != null) {
-                    return false;
-                }
-            }
+    public static int square(int file, int rank) {
+        if (file < 0 || file >= 8 || rank < 0 || rank >= 8) {
+            return Bitboards.NO_SQUARE;
         }
-        return true;
+        return Bitboards.square(file, rank);
     }
 
     /**
-     * Checks if the path is clear for a diagonal move.
+     * Checks if a target square is in a precomputed attack set and is not
+     * occupied by a piece of the mover's own colour.
      *
-     * @param fromFile
-     * @param fromRank
+     * @param attacks   the attack set of the moving piece.
+     * @param piece
      * @param toFile
      * @param toRank
      * @param gameState
-     * @return true for a clear path, false for a blocked path.
+     * @return true if the piece can land on the target square.
      */
-    public static boolean isPathClearDiagonal(int fromFile, int fromRank,
-            int toFile, int toRank,
+    public static boolean canLandOn(long attacks, ChessPiece piece, int toFile, int toRank,
             GameState gameState) {
-
-        int fileStep = Integer.signum(toFile - fromFile);
-        int rankStep = Integer.signum(toRank - fromRank);
-
-        int currentFile = fromFile + fileStep;
-        int currentRank = fromRank + rankStep;
-
-        // Loop until we've reached the destination square.
-        while (currentFile != toFile) {
-            if (gameState.getPieceAt(currentFile, currentRank) != null) {
-                return false;
-            }
-            currentFile += fileStep;
-            currentRank += rankStep;
+        int to = square(toFile, toRank);
+        if (to == Bitboards.NO_SQUARE) {
+            return false;
         }
-        return true;
+        long own = gameState.getPosition().getOccupancy(piece.isWhite());
+        return (attacks & ~own & Bitboards.bit(to)) != 0;
     }
 }
@@ -1,9 +1,9 @@
 package com.lacavedeharol.chess.model.validation;
 
-import java.awt.Point;
-
 import com.lacavedeharol.chess.model.ChessPiece;
 import com.lacavedeharol.chess.model.GameState;
+import com.lacavedeharol.chess.model.bitboard.AttackTables;
+import com.lacavedeharol.chess.model.bitboard.Bitboards;
 
 public class PawnMoveValidation implements MoveValidationStrategy {
 
@@ -21,9 +21,9 @@ public class PawnMoveValidation implements MoveValidationStrategy {
             if (toRank == fromRank + direction) {
                 return target == null;
             }
-            // Double step forward.
+            // Double step forward, only from the pawn's starting rank.
             if (toRank == fromRank + 2 * direction) {
-                if (piece.hasMoved() || target != null) {
+                if (fromRank != (isWhite ? 6 : 1) || target != null) {
                     return false;
                 }
                 // Check intermediate square.
@@ -31,18 +31,16 @@ public class PawnMoveValidation implements MoveValidationStrategy {
             }
         }
         // Diagonal Moves (Standard Capture OR En Passant).
-        if (Math.abs(toFile - fromFile) == 1 && toRank == fromRank + direction) {
+        int to = MoveUtils.square(toFile, toRank);
+        long attacks = AttackTables.pawnAttacks(isWhite, MoveUtils.square(fromFile, fromRank));
+        if (to != Bitboards.NO_SQUARE && (attacks & Bitboards.bit(to)) != 0) {
             // Standard diagonal capture.
-            ChessPiece target = gameState.getPieceAt(toFile, toRank);
-            if (target != null && target.isWhite() != piece.isWhite()) {
+            if ((gameState.getPosition().getOccupancy(!isWhite) & Bitboards.bit(to)) != 0) {
                 return true;
             }
             // En Passant capture.
             // The move is also valid if the destination is the en passant target square.
-            Point enPassantTarget = gameState.getEnPassantTargetSquare();
-            if (enPassantTarget != null && toFile == enPassantTarget.x && toRank == enPassantTarget.y) {
-                return true;
-            }
+            return to == gameState.getPosition().getEnPassantSquare();
         }
 
         // All other moves are invalid for a pawn.
@@ -2,21 +2,16 @@ package com.lacavedeharol.chess.model.validation;
 
 import com.lacavedeharol.chess.model.ChessPiece;
 import com.lacavedeharol.chess.model.GameState;
+import com.lacavedeharol.chess.model.bitboard.AttackTables;
 
 public class RookMoveValidation implements MoveValidationStrategy {
 
     @Override
     public boolean isValidMove(ChessPiece piece, int fromFile, int fromRank, int toFile, int toRank,
             GameState gameState) {
-        if (!(fromFile == toFile || fromRank == toRank)) {
-            return false;
-        }
-
-        if (!MoveUtils.isPathClearStraight(fromFile, fromRank, toFile, toRank, gameState)) {
-            return false;
-        }
-        ChessPiece target = gameState.getPieceAt(toFile, toRank);
-        return target == null || target.isWhite() != piece.isWhite();
+        long attacks = AttackTables.rookAttacks(MoveUtils.square(fromFile, fromRank),
+                gameState.getPosition().getOccupied());
+        return MoveUtils.canLandOn(attacks, piece, toFile, toRank, gameState);
     }
 
 }
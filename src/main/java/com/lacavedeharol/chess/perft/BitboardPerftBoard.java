@@ -0,0 +1,66 @@
+package com.lacavedeharol.chess.perft;
+
+import com.lacavedeharol.chess.model.bitboard.BitboardPosition;
+import com.lacavedeharol.chess.model.bitboard.Fen;
+import com.lacavedeharol.chess.model.bitboard.MaterialKey;
+import com.lacavedeharol.chess.model.bitboard.MoveEncoding;
+import com.lacavedeharol.chess.model.bitboard.MoveGenerator;
+import com.lacavedeharol.chess.model.bitboard.PieceSquareTables;
+import com.lacavedeharol.chess.model.bitboard.Zobrist;
+
+/**
+ * Runs perft on the engine core the AI searches with: MoveGenerator to
+ * generate and BitboardPosition's makeMove / unmakeMove to play, with no
+ * copying. With assertions enabled (-ea) every make and unmake also checks
+ * the incremental hash against a full recompute.
+ */
+public class BitboardPerftBoard implements PerftBoard {
+
+    private final BitboardPosition position;
+
+    public BitboardPerftBoard(BitboardPosition position) {
+        this.position = position;
+    }
+
+    public BitboardPerftBoard(String fen) {
+        this(Fen.parse(fen));
+    }
+
+    @Override
+    public int generateLegalMoves(int[] moves) {
+        return MoveGenerator.generateLegal(position, position.isWhiteToMove(), moves, 0);
+    }
+
+    @Override
+    public void makeMove(int move) {
+        position.makeMove(move);
+        assert position.getHash() == Zobrist.compute(position);
+        assert position.getPawnHash() == Zobrist.computePawns(position);
+        assert position.getMaterialKey() == MaterialKey.compute(position);
+        assert PieceSquareTables.isConsistent(position);
+    }
+
+    @Override
+    public void unmakeMove() {
+        position.unmakeMove();
+        assert position.getHash() == Zobrist.compute(position);
+        assert position.getPawnHash() == Zobrist.computePawns(position);
+        assert position.getMaterialKey() == MaterialKey.compute(position);
+        assert PieceSquareTables.isConsistent(position);
+    }
+
+    @Override
+    public long positionKey() {
+        return position.getHash();
+    }
+
+    @Override
+    public PerftBoard copy() {
+        return new BitboardPerftBoard(new BitboardPosition(position));
+    }
+
+    @Override
+    public String moveToString(int move) {
+        return MoveEncoding.toString(move);
+    }
+}
@@ -0,0 +1,105 @@
+package com.lacavedeharol.chess.perft;
+
+import java.awt.Point;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import com.lacavedeharol.chess.model.ChessPiece;
+import com.lacavedeharol.chess.model.GameState;
+import com.lacavedeharol.chess.model.MoveResult;
+import com.lacavedeharol.chess.model.PieceType;
+import com.lacavedeharol.chess.model.bitboard.Bitboards;
+import com.lacavedeharol.chess.model.bitboard.Fen;
+
+/**
+ * Runs perft through the public GameState API: getLegalMovesForPiece to
+ * generate, movePiece and promotePawn to play. GameState has no undo, so each
+ * move is played on a copy and unmaking pops back to the previous copy.
+ */
+public class GameStatePerftBoard implements PerftBoard {
+
+    private static final PieceType[] PROMOTIONS = {
+            PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT };
+
+    private GameState gameState;
+    private final Deque<GameState> history;
+
+    public GameStatePerftBoard(GameState gameState) {
+        this.gameState = gameState;
+        this.history = new ArrayDeque<>();
+    }
+
+    @Override
+    public int generateLegalMoves(int[] moves) {
+        int count = 0;
+        long pieces = gameState.getPosition().getOccupancy(gameState.isWhiteToMove());
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            ChessPiece piece = gameState.getPieceAt(Bitboards.fileOf(from), Bitboards.rankOf(from));
+            List<Point> targets = gameState.getLegalMovesForPiece(Bitboards.fileOf(from), Bitboards.rankOf(from));
+            for (Point target : targets) {
+                int to = Bitboards.square(target.x, target.y);
+                if (piece.getPieceType() == PieceType.PAWN && (target.y == 0 || target.y == 7)) {
+                    for (PieceType promotion : PROMOTIONS) {
+                        moves[count++] = encode(from, to, promotion.ordinal() + 1);
+                    }
+                } else {
+                    moves[count++] = encode(from, to, 0);
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void makeMove(int move) {
+        history.push(gameState);
+        gameState = new GameState(gameState);
+        int from = move & 63;
+        int to = (move >>> 6) & 63;
+        MoveResult result = gameState.movePiece(Bitboards.fileOf(from), Bitboards.rankOf(from),
+                Bitboards.fileOf(to), Bitboards.rankOf(to));
+        if (result == MoveResult.PROMOTION_REQUIRED) {
+            gameState.promotePawn(Bitboards.fileOf(to), Bitboards.rankOf(to),
+                    PieceType.values()[(move >>> 12) - 1]);
+        } else if (result == MoveResult.INVALID) {
+            throw new IllegalStateException("Generated move was rejected: " + moveToString(move));
+        }
+    }
+
+    @Override
+    public void unmakeMove() {
+        gameState = history.pop();
+    }
+
+    @Override
+    public long positionKey() {
+        return gameState.getHash();
+    }
+
+    @Override
+    public PerftBoard copy() {
+        return new GameStatePerftBoard(new GameState(gameState));
+    }
+
+    @Override
+    public String moveToString(int move) {
+        String text = Fen.squareName(move & 63) + Fen.squareName((move >>> 6) & 63);
+        int promotion = move >>> 12;
+        if (promotion != 0) {
+            text += switch (PieceType.values()[promotion - 1]) {
+                case QUEEN -> "q";
+                case ROOK -> "r";
+                case BISHOP -> "b";
+                default -> "n";
+            };
+        }
+        return text;
+    }
+
+    private static int encode(int from, int to, int promotion) {
+        return from | (to << 6) | (promotion << 12);
+    }
+}
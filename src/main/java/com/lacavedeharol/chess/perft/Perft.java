@@ -0,0 +1,256 @@
+package com.lacavedeharol.chess.perft;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.lacavedeharol.chess.model.GameState;
+import com.lacavedeharol.chess.model.bitboard.Fen;
+
+/**
+ * Performance test: counts the leaf nodes of the legal move tree to a fixed
+ * depth. The totals for well-known positions are published, so any
+ * difference points at a move generation bug, and the time taken measures
+ * the generator's speed.
+ *
+ * Subtree counts can optionally be cached by position key, and the root
+ * moves can be split across a ForkJoinPool.
+ */
+public class Perft {
+
+    private static final int MAX_MOVES = 256;
+
+    // Two longs per entry: (key ^ data, data), data = count << 8 | depth.
+    private final long[] table;
+    private final int tableMask;
+
+    /**
+     * Creates a perft runner without a hash table.
+     */
+    public Perft() {
+        this(0);
+    }
+
+    /**
+     * @param hashSizeMb size of the subtree count cache, 0 to disable it.
+     */
+    public Perft(int hashSizeMb) {
+        if (hashSizeMb <= 0) {
+            this.table = null;
+            this.tableMask = 0;
+        } else {
+            int entries = Integer.highestOneBit((int) Math.min(1L << 30, (hashSizeMb * 1024L * 1024L) / 16));
+            this.table = new long[entries * 2];
+            this.tableMask = entries - 1;
+        }
+    }
+
+    /**
+     * Counts the leaf nodes at the given depth.
+     */
+    public long perft(PerftBoard board, int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        return count(board, depth, new int[depth + 1][MAX_MOVES]);
+    }
+
+    /**
+     * Counts the leaf nodes at the given depth, splitting the root moves across
+     * a pool.
+     */
+    public long perft(PerftBoard board, int depth, ForkJoinPool pool) {
+        if (depth <= 0) {
+            return 1;
+        }
+        long total = 0;
+        for (long nodes : divide(board, depth, pool).values()) {
+            total += nodes;
+        }
+        return total;
+    }
+
+    /**
+     * Counts the leaf nodes below each root move.
+     *
+     * @param depth at least 1: the root moves themselves.
+     * @return the counts keyed by move in coordinate notation, in generation
+     *         order.
+     * @throws IllegalArgumentException if depth is below 1.
+     */
+    public Map<String, Long> divide(PerftBoard board, int depth) {
+        checkDivideDepth(depth);
+        Map<String, Long> result = new LinkedHashMap<>();
+        int[] moves = new int[MAX_MOVES];
+        int count = board.generateLegalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            result.put(board.moveToString(moves[i]), perft(board, depth - 1));
+            board.unmakeMove();
+        }
+        return result;
+    }
+
+    /**
+     * Counts the leaf nodes below each root move, searching every root move as
+     * a separate task on its own copy of the board.
+     *
+     * @param depth at least 1: the root moves themselves.
+     * @return the counts keyed by move in coordinate notation, in generation
+     *         order.
+     * @throws IllegalArgumentException if depth is below 1.
+     */
+    public Map<String, Long> divide(PerftBoard board, int depth, ForkJoinPool pool) {
+        checkDivideDepth(depth);
+        int[] moves = new int[MAX_MOVES];
+        int count = board.generateLegalMoves(moves);
+        List<RootMoveTask> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tasks.add(new RootMoveTask(board.copy(), moves[i], depth - 1));
+        }
+        pool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                invokeAll(tasks);
+                return null;
+            }
+        });
+
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            result.put(board.moveToString(moves[i]), tasks.get(i).join());
+        }
+        return result;
+    }
+
+    private static void checkDivideDepth(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Divide needs a depth of at least 1: " + depth);
+        }
+    }
+
+    private long count(PerftBoard board, int depth, int[][] moveStack) {
+        int[] moves = moveStack[depth];
+        int count = board.generateLegalMoves(moves);
+        if (depth == 1) {
+            return count; // Bulk counting: the leaves are the moves themselves.
+        }
+
+        long key = 0;
+        if (table != null) {
+            key = board.positionKey();
+            long cached = probe(key, depth);
+            if (cached >= 0) {
+                return cached;
+            }
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            nodes += count(board, depth - 1, moveStack);
+            board.unmakeMove();
+        }
+
+        if (table != null) {
+            store(key, depth, nodes);
+        }
+        return nodes;
+    }
+
+    private long probe(long key, int depth) {
+        int index = ((int) key & tableMask) << 1;
+        long data = table[index + 1];
+        if ((table[index] ^ data) == key && (data & 0xFF) == depth) {
+            return data >>> 8;
+        }
+        return -1;
+    }
+
+    /**
+     * Stores a count. The key is saved XORed with the data so a torn write from
+     * another thread fails verification instead of returning a wrong count.
+     */
+    private void store(long key, int depth, long nodes) {
+        int index = ((int) key & tableMask) << 1;
+        long data = (nodes << 8) | depth;
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    private class RootMoveTask extends RecursiveTask<Long> {
+
+        // Tasks are never serialized; ForkJoinTask is Serializable regardless.
+        private static final long serialVersionUID = 1L;
+
+        private final transient PerftBoard board;
+        private final int move;
+        private final int depth;
+
+        RootMoveTask(PerftBoard board, int move, int depth) {
+            this.board = board;
+            this.move = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            board.makeMove(move);
+            return perft(board, depth);
+        }
+    }
+
+    /**
+     * Usage: Perft depth [fen] [--divide] [--threads n] [--hash mb] [--gamestate]
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: Perft depth [fen] [--divide] [--threads n] [--hash mb] [--gamestate]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        String fen = null;
+        boolean divide = false;
+        int threads = 1;
+        int hashSizeMb = 0;
+        boolean gameState = false;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--divide" -> divide = true;
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--hash" -> hashSizeMb = Integer.parseInt(args[++i]);
+                case "--gamestate" -> gameState = true;
+                default -> fen = args[i];
+            }
+        }
+
+        if (fen == null) {
+            fen = Fen.STARTING_POSITION;
+        }
+        PerftBoard board = gameState ? new GameStatePerftBoard(new GameState(fen)) : new BitboardPerftBoard(fen);
+        Perft perft = new Perft(hashSizeMb);
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+
+        long start = System.nanoTime();
+        long nodes;
+        if (divide) {
+            Map<String, Long> counts = pool != null ? perft.divide(board, depth, pool) : perft.divide(board, depth);
+            nodes = 0;
+            for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                System.out.println(entry.getKey() + ": " + entry.getValue());
+                nodes += entry.getValue();
+            }
+            System.out.println("Moves: " + counts.size());
+        } else {
+            nodes = pool != null ? perft.perft(board, depth, pool) : perft.perft(board, depth);
+        }
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.println("Nodes: " + nodes + " (" + elapsedMs + " ms, " + nodes * 1000 / elapsedMs + " nps)");
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+}
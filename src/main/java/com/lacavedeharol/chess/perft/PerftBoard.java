@@ -0,0 +1,40 @@
+package com.lacavedeharol.chess.perft;
+
+/**
+ * The view of a move generator that perft needs. Moves are opaque ints
+ * chosen by the implementation, so the same harness can drive the GameState
+ * API or a faster generator.
+ */
+public interface PerftBoard {
+
+    /**
+     * Writes every legal move of the side to move into the array.
+     *
+     * @param moves a buffer of at least 256 entries.
+     * @return the number of moves written.
+     */
+    int generateLegalMoves(int[] moves);
+
+    void makeMove(int move);
+
+    /**
+     * Takes back the last move made with {@link #makeMove(int)}.
+     */
+    void unmakeMove();
+
+    /**
+     * @return a 64-bit key identifying the current position.
+     */
+    long positionKey();
+
+    /**
+     * @return an independent board in the same position, for use on another
+     *         thread.
+     */
+    PerftBoard copy();
+
+    /**
+     * @return the move in coordinate notation, e.g. "e2e4" or "e7e8q".
+     */
+    String moveToString(int move);
+}
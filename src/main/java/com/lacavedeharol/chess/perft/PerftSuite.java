@@ -0,0 +1,98 @@
+package com.lacavedeharol.chess.perft;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import com.lacavedeharol.chess.model.GameState;
+import com.lacavedeharol.chess.model.bitboard.Fen;
+
+/**
+ * Checks a move generator against the standard perft reference positions.
+ * Between them they cover castling through and out of check, en passant
+ * (including the discovered check along the rank), promotions and
+ * under-promotions.
+ */
+public class PerftSuite {
+
+    /**
+     * A reference position and its published leaf counts for depth 1, 2, ...
+     */
+    public record Reference(String name, String fen, long... expected) {
+    }
+
+    public static final Reference[] REFERENCES = {
+            new Reference("Initial position", Fen.STARTING_POSITION,
+                    20, 400, 8902, 197281, 4865609),
+            new Reference("Kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                    48, 2039, 97862, 4085603),
+            new Reference("Position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                    14, 191, 2812, 43238, 674624),
+            new Reference("Position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                    6, 264, 9467, 422333),
+            new Reference("Position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                    44, 1486, 62379, 2103487),
+            new Reference("Position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                    46, 2079, 89890, 3894594),
+    };
+
+    private PerftSuite() {
+    }
+
+    /**
+     * Runs every reference position up to a maximum depth.
+     *
+     * @param boards   creates a board for a FEN string.
+     * @param maxDepth
+     * @param perft
+     * @param pool     splits the root moves, or null to run serially.
+     * @return true if every count matched.
+     */
+    public static boolean run(Function<String, PerftBoard> boards, int maxDepth, Perft perft, ForkJoinPool pool) {
+        boolean passed = true;
+        for (Reference reference : REFERENCES) {
+            PerftBoard board = boards.apply(reference.fen());
+            for (int depth = 1; depth <= Math.min(maxDepth, reference.expected().length); depth++) {
+                long start = System.nanoTime();
+                long nodes = pool != null ? perft.perft(board, depth, pool) : perft.perft(board, depth);
+                long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+                long expected = reference.expected()[depth - 1];
+                boolean ok = nodes == expected;
+                passed &= ok;
+                System.out.printf("%-17s depth %d: %,12d %s (%d ms)%n", reference.name(), depth, nodes,
+                        ok ? "ok" : "FAILED, expected " + expected, elapsedMs);
+            }
+        }
+        return passed;
+    }
+
+    /**
+     * Usage: PerftSuite [maxDepth] [--threads n] [--hash mb] [--gamestate]
+     *
+     * Runs the bitboard engine core by default, or the GameState API with
+     * --gamestate.
+     */
+    public static void main(String[] args) {
+        int maxDepth = 3;
+        int threads = 1;
+        int hashSizeMb = 0;
+        boolean gameState = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--hash" -> hashSizeMb = Integer.parseInt(args[++i]);
+                case "--gamestate" -> gameState = true;
+                default -> maxDepth = Integer.parseInt(args[i]);
+            }
+        }
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        Function<String, PerftBoard> boards = gameState
+                ? fen -> new GameStatePerftBoard(new GameState(fen))
+                : BitboardPerftBoard::new;
+        boolean passed = run(boards, maxDepth, new Perft(hashSizeMb), pool);
+        if (pool != null) {
+            pool.shutdown();
+        }
+        System.out.println(passed ? "All perft counts match." : "Perft mismatches found.");
+        System.exit(passed ? 0 : 1);
+    }
+}
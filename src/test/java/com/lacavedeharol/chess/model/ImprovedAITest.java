@@ -0,0 +1,48 @@
+package com.lacavedeharol.chess.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.lacavedeharol.chess.model.search.SearchLimits;
+import com.lacavedeharol.chess.model.search.TranspositionTable;
+
+class ImprovedAITest {
+
+    /**
+     * A one-ply search only sees the mate if quiescence, finding the enemy
+     * king in check with no evasions, scores it as mate instead of standing
+     * pat.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = { "6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1", "r5k1/8/8/8/8/8/5PPP/6K1 b - - 0 1" })
+    void depthOneSearchFindsBackRankMate(String fen) {
+        GameState gameState = new GameState(fen);
+        boolean isWhite = gameState.isWhiteToMove();
+        new ImprovedAI(isWhite, SearchLimits.depth(1)).makeMove(gameState);
+        assertEquals(isWhite ? GameStatus.CHECKMATE_WHITE_WINS : GameStatus.CHECKMATE_BLACK_WINS,
+                gameState.getGameStatus());
+    }
+
+    @Test
+    void closeStopsTheHelperThreads() throws InterruptedException {
+        GameState gameState = new GameState();
+        try (ImprovedAI ai = new ImprovedAI(true, SearchLimits.depth(4), new TranspositionTable(1), 3)) {
+            ai.makeMove(gameState);
+        }
+        assertFalse(gameState.isWhiteToMove(), "a move was played");
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (helperThreadsAlive() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(helperThreadsAlive(), "helper threads still running");
+    }
+
+    private static boolean helperThreadsAlive() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(thread -> thread.getName().equals("ImprovedAI helper") && thread.isAlive());
+    }
+}
@@ -0,0 +1,38 @@
+package com.lacavedeharol.chess.model.bitboard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Re-checks the committed magics: every blocker subset of every square's
+ * rays must look up the attack set a plain ray walk gives.
+ */
+class AttackTablesTest {
+
+    @Test
+    void rookMagicsMatchRayWalk() {
+        assertMagicsMatch(true);
+    }
+
+    @Test
+    void bishopMagicsMatchRayWalk() {
+        assertMagicsMatch(false);
+    }
+
+    private static void assertMagicsMatch(boolean isRook) {
+        for (int square = 0; square < 64; square++) {
+            long mask = AttackTables.relevantMask(square, isRook);
+            long subset = 0;
+            do {
+                // Squares off the rays must not change the lookup.
+                long occupied = subset | (~mask & 0x8100000000000081L);
+                long attacks = isRook ? AttackTables.rookAttacks(square, occupied)
+                        : AttackTables.bishopAttacks(square, occupied);
+                assertEquals(AttackTables.slidingAttacks(square, occupied, isRook), attacks,
+                        Fen.squareName(square) + " with blockers " + Long.toHexString(subset));
+                subset = (subset - mask) & mask;
+            } while (subset != 0);
+        }
+    }
+}
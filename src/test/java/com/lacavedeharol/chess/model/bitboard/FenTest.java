@@ -0,0 +1,63 @@
+package com.lacavedeharol.chess.model.bitboard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class FenTest {
+
+    @Test
+    void parsesStartingPosition() {
+        BitboardPosition position = Fen.parse(Fen.STARTING_POSITION);
+        assertEquals(32, Long.bitCount(position.getOccupied()));
+        assertEquals(Bitboards.WHITE_KING, position.getPieceAt(Fen.parseSquare("e1")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", // Digit past the board
+            "rnbqkbnr/pppppppp/45/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", // Digit run past the board
+            "rnbqkbnrp/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", // Nine pieces
+            "rnbqkbnr/pppppppp/8P/8/8/8/PPPPPPP1/RNBQKBNR w KQkq - 0 1", // Piece past the board
+            "rnbqkbnr/ppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", // Short rank
+            "rnbqkbnr/pppppppp/7/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", // Short empty rank
+            "rnbqkbnr/pppppppp/08/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1" }) // Zero
+    void rejectsBadRanks(String fen) {
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse(fen));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1", // Unknown side
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR W KQkq - 0 1", // Upper case side
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQxq - 0 1", // Unknown castling letter
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KKq - 0 1", // Repeated castling letter
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w K- - 0 1", // Dash with letters
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e 0 1", // Short en passant square
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e33 0 1" }) // Long en passant square
+    void rejectsBadFields(String fen) {
+        assertThrows(IllegalArgumentException.class, () -> Fen.parse(fen));
+    }
+
+    @Test
+    void parsesSideToMoveAndCastlingRights() {
+        BitboardPosition position = Fen.parse("r3k2r/8/8/8/8/8/8/R3K2R b Kq - 0 1");
+        assertFalse(position.isWhiteToMove());
+        assertTrue(position.hasCastlingRight(Bitboards.WHITE_KINGSIDE));
+        assertFalse(position.hasCastlingRight(Bitboards.WHITE_QUEENSIDE));
+        assertFalse(position.hasCastlingRight(Bitboards.BLACK_KINGSIDE));
+        assertTrue(position.hasCastlingRight(Bitboards.BLACK_QUEENSIDE));
+        assertFalse(Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1").hasCastlingRight(Bitboards.WHITE_KINGSIDE));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "e", "e44", "i4", "e9", "e0" })
+    void rejectsBadSquareNames(String name) {
+        assertThrows(IllegalArgumentException.class, () -> Fen.parseSquare(name));
+    }
+}
@@ -0,0 +1,64 @@
+package com.lacavedeharol.chess.model.bitboard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class MaterialKeyTest {
+
+    @ParameterizedTest(name = "{0} x{1}: {2}")
+    @CsvSource({
+            "0, 8, true", // Pawns
+            "1, 2, true", "1, 3, false", // Bishops
+            "2, 2, true", "2, 3, false", // Knights
+            "3, 2, true", "3, 3, false", // Rooks
+            "4, 1, true", "4, 2, false", "4, 9, false", // Queens
+            "7, 2, true", "7, 3, false", // Black bishops
+            "10, 1, true", "10, 2, false" }) // Black queens
+    void overflowIsDetectedPerPiece(int piece, int count, boolean indexed) {
+        assertEquals(indexed, MaterialKey.isIndexed(count * MaterialKey.keyUnit(piece)));
+    }
+
+    @Test
+    void indexNumbersEverySignatureOnce() {
+        // Every combination of counts within the index's range, as a mixed-radix number.
+        int[] limits = { 8, 2, 2, 2, 1, 0, 8, 2, 2, 2, 1, 0 };
+        boolean[] seen = new boolean[MaterialKey.INDEX_SIZE];
+        int[] counts = new int[12];
+        for (int n = 0; n < MaterialKey.INDEX_SIZE; n++) {
+            long key = 0;
+            for (int piece = 0; piece < 12; piece++) {
+                key += counts[piece] * MaterialKey.keyUnit(piece);
+            }
+            assertTrue(MaterialKey.isIndexed(key));
+            int index = MaterialKey.index(key);
+            assertFalse(seen[index], "index " + index + " used twice");
+            seen[index] = true;
+            for (int piece = 0; piece < 12; piece++) {
+                assertEquals(counts[piece], MaterialKey.count(key, piece));
+                if (counts[piece] < limits[piece]) {
+                    counts[piece]++;
+                    break;
+                }
+                counts[piece] = 0;
+            }
+        }
+    }
+
+    @Test
+    void positionKeepsKeyAndIndexThroughMoves() {
+        BitboardPosition position = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(position, true, moves, 0);
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            assertEquals(MaterialKey.compute(position), position.getMaterialKey());
+            assertEquals(MaterialKey.index(position.getMaterialKey()), position.getMaterialIndex());
+            position.unmakeMove();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.lacavedeharol.chess.model.evaluation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.lacavedeharol.chess.model.bitboard.BitboardPosition;
+import com.lacavedeharol.chess.model.bitboard.Fen;
+import com.lacavedeharol.chess.model.bitboard.MaterialKey;
+
+class MaterialTableTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "4k3/8/8/8/8/8/8/4K3 w - - 0 1", // KvK
+            "4k3/8/8/8/8/8/8/1N2K3 w - - 0 1", // KNvK
+            "4k3/8/8/8/8/8/8/2B1K3 w - - 0 1", // KBvK
+            "2b1k3/8/8/8/8/8/8/4K3 w - - 0 1" }) // KvKB
+    void insufficientMaterialIsADraw(String fen) {
+        assertTrue(MaterialTable.isDraw(probe(fen)));
+    }
+
+    @Test
+    void bishopAndKnightAgainstBareKing() {
+        assertEquals(MaterialTable.KIND_KBNK, MaterialTable.kind(probe("4k3/8/8/8/8/8/8/1NB1K3 w - - 0 1")));
+        assertEquals(MaterialTable.KIND_KBNK, MaterialTable.kind(probe("1nb1k3/8/8/8/8/8/8/4K3 w - - 0 1")));
+    }
+
+    @Test
+    void twoKnightsCannotWin() {
+        int entry = probe("4k3/8/8/8/8/8/8/1N2KN2 w - - 0 1");
+        assertFalse(MaterialTable.isDraw(entry));
+        assertEquals(0, MaterialTable.scale(entry, true));
+    }
+
+    @Test
+    void singleBishopsAreFlagged() {
+        int entry = probe("2b1k3/4p3/8/8/8/8/4P3/2B1K3 w - - 0 1");
+        assertEquals(MaterialTable.KIND_SINGLE_BISHOPS, MaterialTable.kind(entry));
+        assertEquals(MaterialTable.FULL_SCALE, MaterialTable.scale(entry, true));
+    }
+
+    @Test
+    void negativeImbalanceLeavesTheOtherFieldsAlone() {
+        // Only Black has the bishop pair.
+        int entry = probe("2b1kb2/8/8/8/8/8/8/4K3 w - - 0 1");
+        assertEquals(-40, MaterialTable.imbalance(entry));
+        assertEquals(MaterialTable.KIND_NORMAL, MaterialTable.kind(entry));
+        assertEquals(MaterialTable.FULL_SCALE, MaterialTable.scale(entry, false));
+        assertEquals(40, MaterialTable.imbalance(probe("4k3/8/8/8/8/8/8/2B1KB2 w - - 0 1")));
+    }
+
+    @Test
+    void signaturePastTheIndexIsComputed() {
+        BitboardPosition position = Fen.parse("4k3/8/8/8/8/8/8/QQQ1K3 w - - 0 1");
+        assertFalse(MaterialKey.isIndexed(position.getMaterialKey()));
+        int entry = MaterialTable.probe(position);
+        assertEquals(MaterialTable.KIND_NORMAL, MaterialTable.kind(entry));
+        assertEquals(MaterialTable.FULL_SCALE, MaterialTable.scale(entry, true));
+    }
+
+    private static int probe(String fen) {
+        return MaterialTable.probe(Fen.parse(fen));
+    }
+}
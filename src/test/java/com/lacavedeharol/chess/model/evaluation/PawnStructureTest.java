@@ -0,0 +1,73 @@
+package com.lacavedeharol.chess.model.evaluation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.lacavedeharol.chess.model.bitboard.BitboardPosition;
+import com.lacavedeharol.chess.model.bitboard.Bitboards;
+import com.lacavedeharol.chess.model.bitboard.Fen;
+
+/**
+ * Each pawn structure term on its own, for White and then for Black on the
+ * mirrored board, so the spans are checked in both directions. Scores are
+ * White minus Black.
+ */
+class PawnStructureTest {
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource(delimiter = '|', value = {
+            // c2 and c3; everything else is defended and blocked.
+            "Doubled, White | 7k/1ppp4/8/8/8/2P5/1PP5/7K w - - 0 1 | -10 | -20",
+            "Doubled, Black | 7k/1pp5/2p5/8/8/8/1PPP4/7K w - - 0 1 | 10 | 20",
+            "Isolated, White | 7k/pp6/8/8/8/8/P7/7K w - - 0 1 | -10 | -15",
+            "Isolated, Black | 7k/p7/8/8/8/8/PP6/7K w - - 0 1 | 10 | 15",
+            // c3 is behind b4 and its stop square c4 is guarded by d5.
+            "Backward, White | 7k/8/1pp5/3p4/1P6/2P5/8/7K w - - 0 1 | -8 | -10",
+            "Backward, Black | 7k/8/2p5/1p6/3P4/1PP5/8/7K w - - 0 1 | 8 | 10",
+            // Doubled and isolated, but the front pawn is passed three ranks up.
+            "Passed, White | 7k/8/8/4P3/4P3/8/8/7K w - - 0 1 | -10 | -10",
+            "Passed, Black | 7k/8/8/4p3/4p3/8/8/7K w - - 0 1 | 10 | 10",
+            // Isolated, and passed on the rank before promotion.
+            "Seventh rank, White | 7k/P7/8/8/8/8/8/7K w - - 0 1 | 50 | 105",
+            "Seventh rank, Black | 7k/8/8/8/8/8/p7/7K w - - 0 1 | -50 | -105" })
+    void scoresEachTerm(String name, String fen, int midgame, int endgame) {
+        PawnHashTable.Entry entry = evaluate(fen);
+        assertEquals(midgame, entry.getMidgame(), name + " midgame");
+        assertEquals(endgame, entry.getEndgame(), name + " endgame");
+    }
+
+    @Test
+    void onlyTheFrontPawnOfAFileIsPassed() {
+        assertEquals(square("e5"), evaluate("7k/8/8/4P3/4P3/8/8/7K w - - 0 1").getPassedPawns(true));
+        assertEquals(square("e4"), evaluate("7k/8/8/4p3/4p3/8/8/7K w - - 0 1").getPassedPawns(false));
+    }
+
+    @Test
+    void pawnOnANeighbouringFileAheadStopsAPassedPawn() {
+        PawnHashTable.Entry entry = evaluate("7k/8/3p4/8/4P3/8/8/7K w - - 0 1");
+        assertEquals(0, entry.getPassedPawns(true));
+        assertEquals(0, entry.getPassedPawns(false));
+    }
+
+    @Test
+    void frontSpanRunsTowardsPromotion() {
+        assertEquals(square("e5") | square("e6") | square("e7") | square("e8"),
+                PawnStructure.frontSpan(Fen.parseSquare("e4"), true));
+        assertEquals(square("e3") | square("e2") | square("e1"), PawnStructure.frontSpan(Fen.parseSquare("e4"), false));
+    }
+
+    private static PawnHashTable.Entry evaluate(String fen) {
+        BitboardPosition position = Fen.parse(fen);
+        PawnHashTable.Entry entry = new PawnHashTable.Entry();
+        PawnStructure.evaluate(position.getPieceSet(Bitboards.WHITE_PAWN), position.getPieceSet(Bitboards.BLACK_PAWN),
+                entry);
+        return entry;
+    }
+
+    private static long square(String name) {
+        return Bitboards.bit(Fen.parseSquare(name));
+    }
+}
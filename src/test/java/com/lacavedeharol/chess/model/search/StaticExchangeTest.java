@@ -0,0 +1,56 @@
+package com.lacavedeharol.chess.model.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.lacavedeharol.chess.model.bitboard.BitboardPosition;
+import com.lacavedeharol.chess.model.bitboard.Fen;
+import com.lacavedeharol.chess.model.bitboard.MoveEncoding;
+import com.lacavedeharol.chess.model.bitboard.MoveGenerator;
+
+class StaticExchangeTest {
+
+    @ParameterizedTest(name = "{0}: {2}")
+    @CsvSource(delimiter = '|', value = {
+            "Queen takes a pawn a pawn defends | 4k3/8/2p5/3p4/8/8/8/3QK3 w - - 0 1 | d1d5 | -800",
+            "Undefended pawn | 4k3/8/8/3p4/8/8/8/3QK3 w - - 0 1 | d1d5 | 100",
+            // The rook behind joins in once the front one has recaptured.
+            "Rook battery x-ray | 3rk3/8/8/3p4/8/8/3R4/3R2K1 w - - 0 1 | d2d5 | 100",
+            "Single rook | 3rk3/8/8/3p4/8/8/3R4/6K1 w - - 0 1 | d2d5 | -400",
+            "Winning en passant | 4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1 | e5d6 | 100",
+            // The captured pawn leaves the rook's file open.
+            "En passant opens a file | 4k3/8/8/3pP3/8/8/7K/3r4 w - d6 0 1 | e5d6 | 0",
+            "Capture-promotion | 3r3k/4P3/8/8/8/8/8/4K3 w - - 0 1 | e7d8q | 1300",
+            "Black knight takes a defended pawn | 4k3/8/8/4n3/8/3P4/2P5/4K3 b - - 0 1 | e5d3 | -220" })
+    void evaluatesExchange(String name, String fen, String move, int expected) {
+        BitboardPosition position = Fen.parse(fen);
+        assertEquals(expected, new StaticExchange().evaluate(position, findMove(position, move)), name);
+    }
+
+    /**
+     * Black loses either way after exd8=Q: down the queen's worth if it stands
+     * pat, down 400 if the king takes back. The exchange stops there, so the
+     * result keeps only the sign of White's true gain of 400.
+     */
+    @Test
+    void earlyCutoffKeepsTheSign() {
+        BitboardPosition position = Fen.parse("3rk3/4P3/8/8/8/8/8/4K3 w - - 0 1");
+        int gain = new StaticExchange().evaluate(position, findMove(position, "e7d8q"));
+        assertTrue(gain >= 400, "gain " + gain);
+    }
+
+    private static int findMove(BitboardPosition position, String name) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(position, position.isWhiteToMove(), moves, 0);
+        for (int i = 0; i < count; i++) {
+            if (MoveEncoding.toString(moves[i]).equals(name)) {
+                return moves[i];
+            }
+        }
+        throw new IllegalArgumentException("No legal move " + name + " in " + position);
+    }
+}
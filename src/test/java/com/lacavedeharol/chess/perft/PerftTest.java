@@ -0,0 +1,67 @@
+package com.lacavedeharol.chess.perft;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.lacavedeharol.chess.model.GameState;
+import com.lacavedeharol.chess.model.bitboard.Fen;
+
+/**
+ * The PerftSuite reference positions at shallow depth, through both the
+ * bitboard engine core and the GameState API, so that castling, en passant
+ * and promotions stay correct while the engine is optimized.
+ */
+class PerftTest {
+
+    private static final int DEPTH = 3;
+
+    static Stream<PerftSuite.Reference> references() {
+        return Arrays.stream(PerftSuite.REFERENCES);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("references")
+    void bitboardCountsMatch(PerftSuite.Reference reference) {
+        assertCounts(reference, BitboardPerftBoard::new);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("references")
+    void gameStateCountsMatch(PerftSuite.Reference reference) {
+        assertCounts(reference, fen -> new GameStatePerftBoard(new GameState(fen)));
+    }
+
+    @Test
+    void parallelPerftMatchesSerial() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Perft perft = new Perft();
+            PerftBoard board = new BitboardPerftBoard(Fen.STARTING_POSITION);
+            assertEquals(1, perft.perft(board, 0, pool));
+            assertEquals(1, perft.perft(board, -1, pool));
+            assertEquals(8902, perft.perft(board, 3, pool));
+            assertThrows(IllegalArgumentException.class, () -> perft.divide(board, 0, pool));
+            assertThrows(IllegalArgumentException.class, () -> perft.divide(board, 0));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertCounts(PerftSuite.Reference reference, Function<String, PerftBoard> boards) {
+        Perft perft = new Perft();
+        PerftBoard board = boards.apply(reference.fen());
+        for (int depth = 1; depth <= DEPTH; depth++) {
+            assertEquals(reference.expected()[depth - 1], perft.perft(board, depth),
+                    reference.name() + " at depth " + depth);
+        }
+    }
+}